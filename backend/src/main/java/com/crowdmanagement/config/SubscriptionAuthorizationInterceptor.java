@@ -0,0 +1,225 @@
+package com.crowdmanagement.config;
+
+import com.crowdmanagement.repository.AdminUserRepository;
+import com.crowdmanagement.repository.AreaRepository;
+import com.crowdmanagement.repository.EventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Subscription Authorization Interceptor
+ * --------------------------------------
+ * Checks SUBSCRIBE and SEND frames against the tenant-scoped topics of
+ * WebSocketService.
+ *
+ * CONNECT - the session's user is the OAuth2 login of the WebSocket
+ *           handshake (the HTTP session). Without one (local login, or a
+ *           cross-origin SockJS session that carries no cookie) it is the
+ *           X-User-Email header of the CONNECT frame, the same header the
+ *           REST API identifies the owner by, accepted only for a
+ *           registered admin user. An OAuth2 login always wins over the
+ *           header.
+ * SUBSCRIBE - deny by default; only these are allowed:
+ *   /topic/owner/{ownerEmail}/...    - only that owner
+ *   /topic/event/{eventId}/...       - only the event's owner
+ *   /topic/area/{areaId}, /topic/alerts/{areaId} - only the area's owner
+ *   /app/owner/{ownerEmail}/areas/snapshot, /app/event/{eventId}/areas/snapshot
+ *                                    - same rules (AreaSnapshotController)
+ *   /user/...                        - resolved to the subscribing session
+ *   The relay's user registry broadcasts (WebSocketConfig) are always
+ *   refused: they carry every instance's sessions and user destinations.
+ *   Destinations with pattern characters (* ? { }) are always refused: the
+ *   broker matches subscriptions as patterns, so /topic/** would see every
+ *   tenant's traffic.
+ * SEND - only to /app/...; clients never publish to broker destinations
+ *
+ * A refused frame fails, which ends the STOMP session with an ERROR frame.
+ * Confirmed event and area ownership is cached in the session attributes,
+ * so a dashboard re-subscribing on every page change queries once per id.
+ * Only grants are cached: a refusal ends the session anyway.
+ */
+@Component
+public class SubscriptionAuthorizationInterceptor implements ChannelInterceptor {
+
+    private static final String SESSION_EMAIL = "ownerEmail";
+    private static final String SESSION_OWNED = "ownedKeys";
+    static final String EMAIL_HEADER = "X-User-Email";
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private AreaRepository areaRepository;
+
+    @Autowired
+    private AdminUserRepository adminUserRepository;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        Map<String, Object> session = accessor.getSessionAttributes();
+
+        if (accessor.getCommand() == StompCommand.CONNECT) {
+            String email = resolveEmail(accessor.getUser());
+            if (email == null) {
+                email = resolveHeaderEmail(accessor.getFirstNativeHeader(EMAIL_HEADER));
+            }
+            if (email != null && session != null) {
+                session.put(SESSION_EMAIL, email);
+            }
+        } else if (accessor.getCommand() == StompCommand.SUBSCRIBE) {
+            String email = session != null ? (String) session.get(SESSION_EMAIL) : null;
+            String destination = accessor.getDestination();
+            if (destination == null || !isAllowed(destination, email, ownedKeys(session))) {
+                throw new MessageDeliveryException(message, "Not authorized to subscribe to " + destination);
+            }
+        } else if (accessor.getCommand() == StompCommand.SEND) {
+            String destination = accessor.getDestination();
+            if (destination == null || !isSendAllowed(destination)) {
+                throw new MessageDeliveryException(message, "Not authorized to send to " + destination);
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Whether a user may subscribe to a destination
+     */
+    boolean isAllowed(String destination, String email) {
+        return isAllowed(destination, email, null);
+    }
+
+    /**
+     * Whether a user may subscribe to a destination, consulting and filling
+     * the session's ownership cache when there is one
+     */
+    boolean isAllowed(String destination, String email, Set<String> owned) {
+        if (hasPattern(destination) || isRelayBroadcast(destination)) {
+            return false;
+        }
+        if (destination.startsWith("/user/")) {
+            return true;
+        }
+        String[] parts = destination.split("/");
+        // ["", "topic" or "app", scope, key, ...]
+        if (parts.length < 4 || email == null || parts[3].isEmpty()) {
+            return false;
+        }
+        String prefix = parts[1];
+        String scope = parts[2];
+        String key = parts[3];
+        if ("app".equals(prefix)) {
+            if (!destination.endsWith("/areas/snapshot") || parts.length != 6) {
+                return false;
+            }
+            return switch (scope) {
+                case "owner" -> email.equals(key);
+                case "event" -> owns("event", key, email, owned);
+                default -> false;
+            };
+        }
+        if (!"topic".equals(prefix)) {
+            return false;
+        }
+        return switch (scope) {
+            case "owner" -> parts.length > 4 && email.equals(key);
+            case "event" -> parts.length > 4 && owns("event", key, email, owned);
+            case "area", "alerts" -> parts.length == 4 && owns("area", key, email, owned);
+            default -> false;
+        };
+    }
+
+    /**
+     * Whether a client may SEND to a destination: only application handlers
+     */
+    boolean isSendAllowed(String destination) {
+        return destination.startsWith("/app/") && !hasPattern(destination);
+    }
+
+    /**
+     * Whether the user owns the event or area, from the cache when granted before
+     */
+    private boolean owns(String kind, String key, String email, Set<String> owned) {
+        Long id = parseId(key);
+        if (id == null) {
+            return false;
+        }
+        String cacheKey = kind + ":" + id;
+        if (owned != null && owned.contains(cacheKey)) {
+            return true;
+        }
+        boolean owns = "event".equals(kind)
+                ? eventRepository.findByIdAndOwnerEmail(id, email).isPresent()
+                : areaRepository.findByIdAndOwnerEmail(id, email).isPresent();
+        if (owns && owned != null) {
+            owned.add(cacheKey);
+        }
+        return owns;
+    }
+
+    /**
+     * The session's ownership cache; the email is fixed at CONNECT, so it
+     * needs no key of its own
+     */
+    @SuppressWarnings("unchecked")
+    private static Set<String> ownedKeys(Map<String, Object> session) {
+        if (session == null) {
+            return null;
+        }
+        return (Set<String>) session.computeIfAbsent(SESSION_OWNED, k -> ConcurrentHashMap.newKeySet());
+    }
+
+    private static boolean isRelayBroadcast(String destination) {
+        return destination.startsWith(WebSocketConfig.USER_DESTINATION_BROADCAST)
+                || destination.startsWith(WebSocketConfig.USER_REGISTRY_BROADCAST);
+    }
+
+    private static boolean hasPattern(String destination) {
+        return destination.indexOf('*') >= 0 || destination.indexOf('?') >= 0
+                || destination.indexOf('{') >= 0 || destination.indexOf('}') >= 0;
+    }
+
+    /**
+     * Email of the authenticated handshake user, or null for anonymous sessions
+     */
+    private static String resolveEmail(Principal user) {
+        if (user instanceof OAuth2AuthenticationToken token) {
+            return token.getPrincipal().getAttribute("email");
+        }
+        return null;
+    }
+
+    /**
+     * Email of the CONNECT header, or null unless it is a registered admin user
+     */
+    private String resolveHeaderEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return adminUserRepository.existsByEmail(email) ? email : null;
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,29 +1,156 @@
 package com.crowdmanagement.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import com.crowdmanagement.service.WebSocketSessionMonitor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
 /**
  * WebSocket Configuration
  * -----------------------
  * Enables real-time updates via WebSocket with STOMP protocol.
- * Clients can subscribe to /topic/areas to receive live area updates.
+ * Clients subscribe to tenant-scoped topics (/topic/owner/{ownerEmail}/...,
+ * /topic/event/{eventId}/...) to receive live updates; subscriptions are
+ * authorized by SubscriptionAuthorizationInterceptor.
+ * Scanners can publish scans to /app/scan and receive acks on
+ * /user/queue/scan-acks (see ScanMessageController).
+ *
+ * Broker: the in-memory simple broker by default, which only reaches
+ * clients of this JVM. With app.websocket.relay.enabled=true, /topic and
+ * /queue are relayed to an external STOMP broker (ActiveMQ, Artemis,
+ * RabbitMQ with the STOMP plugin), so a scan processed on one instance
+ * reaches subscribers connected to any other. Relay mode needs Reactor
+ * Netty on the classpath: build with -Pstomp-relay.
+ *
+ * Transport limits and channel executors are configurable; slow sessions
+ * are handled by WebSocketSessionMonitor (see app.websocket.slow-consumer.*).
  */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // Relay topics carrying user registry state between instances; never for clients
+    public static final String USER_DESTINATION_BROADCAST = "/topic/unresolved-user-destination";
+    public static final String USER_REGISTRY_BROADCAST = "/topic/simp-user-registry";
+
+    @Autowired
+    private SubscriptionAuthorizationInterceptor subscriptionAuthorizationInterceptor;
+
+    @Autowired
+    private WebSocketSessionMonitor webSocketSessionMonitor;
+
+    @Value("${app.websocket.message-size-limit-bytes:65536}")
+    private int messageSizeLimit;
+
+    @Value("${app.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimit;
+
+    @Value("${app.websocket.send-buffer-size-limit-bytes:524288}")
+    private int sendBufferSizeLimit;
+
+    // 0 = two threads per CPU (Spring's default core size)
+    @Value("${app.websocket.executor.pool-size:0}")
+    private int executorPoolSize;
+
+    @Value("${app.websocket.executor.queue-capacity:10000}")
+    private int executorQueueCapacity;
+
+    @Value("${app.websocket.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    @Value("${app.websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${app.websocket.relay.client-login:guest}")
+    private String relayClientLogin;
+
+    @Value("${app.websocket.relay.client-passcode:guest}")
+    private String relayClientPasscode;
+
+    @Value("${app.websocket.relay.system-login:guest}")
+    private String relaySystemLogin;
+
+    @Value("${app.websocket.relay.system-passcode:guest}")
+    private String relaySystemPasscode;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple in-memory message broker
         // Clients subscribe to destinations prefixed with /topic
-        config.enableSimpleBroker("/topic");
-        
+        // /queue carries per-session replies such as scan acks
+        if (relayEnabled) {
+            // External broker shared by all instances
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayClientLogin)
+                    .setClientPasscode(relayClientPasscode)
+                    .setSystemLogin(relaySystemLogin)
+                    .setSystemPasscode(relaySystemPasscode)
+                    // Resolve /user destinations of sessions held by other instances
+                    .setUserDestinationBroadcast(USER_DESTINATION_BROADCAST)
+                    .setUserRegistryBroadcast(USER_REGISTRY_BROADCAST);
+            if (!relayVirtualHost.isBlank()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+        } else {
+            // Simple in-memory message broker (single instance)
+            config.enableSimpleBroker("/topic", "/queue");
+        }
+
         // Messages from clients are routed to @MessageMapping methods
         config.setApplicationDestinationPrefixes("/app");
+
+        // /user/queue/... resolves to the subscribing session
+        config.setUserDestinationPrefix("/user");
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Resolve the user on CONNECT and authorize every SUBSCRIBE
+        registration.interceptors(subscriptionAuthorizationInterceptor);
+        configureExecutor(registration);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Per-session queue depth, per-destination rates, slow-consumer policy
+        registration.interceptors(webSocketSessionMonitor);
+        configureExecutor(registration);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Largest inbound STOMP message; a write stalled longer than the time
+        // limit or a session buffering more than the buffer limit is closed
+        registration.setMessageSizeLimit(messageSizeLimit)
+                .setSendTimeLimit(sendTimeLimit)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .addDecoratorFactory(webSocketSessionMonitor::decorate);
+    }
+
+    /**
+     * Fixed-size pool with a bounded queue, so saturation shows up as queue
+     * depth (websocket.executor.queued) instead of unbounded growth
+     */
+    private void configureExecutor(ChannelRegistration registration) {
+        int poolSize = executorPoolSize > 0 ? executorPoolSize : Runtime.getRuntime().availableProcessors() * 2;
+        registration.taskExecutor()
+                .corePoolSize(poolSize)
+                .maxPoolSize(poolSize)
+                .queueCapacity(executorQueueCapacity);
     }
 
     @Override
@@ -33,5 +160,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+
+        // Plain WebSocket endpoint for scanner devices (no SockJS framing overhead)
+        registry.addEndpoint("/ws/scanner")
+                .setAllowedOriginPatterns("*");
     }
 }
@@ -1,8 +1,10 @@
 package com.crowdmanagement.controller;
 
+import com.crowdmanagement.dto.AlertPageResponse;
 import com.crowdmanagement.dto.AlertResponse;
 import com.crowdmanagement.entity.AlertStatus;
 import com.crowdmanagement.entity.AlertType;
+import com.crowdmanagement.repository.AlertQueryRepository;
 import com.crowdmanagement.service.AlertService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -27,31 +29,37 @@ public class AlertController {
     private AlertService alertService;
 
     /**
-     * Get all alerts for the current user
+     * Query alerts for the current user, newest first, one page at a time
+     * All filters combine; pass the previous page's nextCursor as cursor for the next page.
      */
     @GetMapping
-    public ResponseEntity<List<AlertResponse>> getAllAlerts(
+    public ResponseEntity<?> getAllAlerts(
             @RequestHeader("X-User-Email") String ownerEmail,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String type,
             @RequestParam(required = false) Long areaId,
-            @RequestParam(required = false, defaultValue = "24h") String dateRange) {
-
-        List<AlertResponse> alerts;
-
-        if (areaId != null) {
-            alerts = alertService.getAlertsByArea(areaId);
-        } else if (status != null && !status.isEmpty() && !status.equals("all")) {
-            AlertStatus alertStatus = AlertStatus.valueOf(status.toUpperCase());
-            alerts = alertService.getAlertsByStatus(ownerEmail, alertStatus);
-        } else if (type != null && !type.isEmpty() && !type.equals("all")) {
-            AlertType alertType = AlertType.valueOf(type.toUpperCase());
-            alerts = alertService.getAlertsByType(ownerEmail, alertType);
-        } else {
-            alerts = alertService.getAlertsByDateRange(ownerEmail, dateRange);
+            @RequestParam(required = false, defaultValue = "24h") String dateRange,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "50") int limit) {
+        try {
+            AlertQueryRepository.Filter filter = new AlertQueryRepository.Filter(
+                    ownerEmail,
+                    areaId,
+                    isSet(status) ? AlertStatus.valueOf(status.toUpperCase()) : null,
+                    isSet(type) ? AlertType.valueOf(type.toUpperCase()) : null,
+                    AlertService.startOfRange(dateRange),
+                    null);
+            AlertPageResponse page = alertService.queryAlerts(filter, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         }
+    }
 
-        return ResponseEntity.ok(alerts);
+    private static boolean isSet(String filter) {
+        return filter != null && !filter.isEmpty() && !filter.equals("all");
     }
 
     /**
@@ -99,11 +107,32 @@ public class AlertController {
      * Mark all alerts as read
      */
     @PutMapping("/mark-all-read")
-    public ResponseEntity<Map<String, String>> markAllAsRead(
+    public ResponseEntity<Map<String, Object>> markAllAsRead(
             @RequestHeader("X-User-Email") String ownerEmail) {
-        alertService.markAllAsRead(ownerEmail);
-        Map<String, String> response = new HashMap<>();
+        int updated = alertService.markAllAsRead(ownerEmail);
+        Map<String, Object> response = new HashMap<>();
         response.put("message", "All alerts marked as read");
+        response.put("updated", updated);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Resolve all unresolved alerts of an event
+     */
+    @PutMapping("/event/{eventId}/resolve-all")
+    public ResponseEntity<?> resolveAllForEvent(
+            @PathVariable Long eventId,
+            @RequestHeader("X-User-Email") String ownerEmail) {
+        try {
+            int resolved = alertService.resolveAllForEvent(eventId, ownerEmail);
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "All event alerts resolved");
+            response.put("resolved", resolved);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
 }
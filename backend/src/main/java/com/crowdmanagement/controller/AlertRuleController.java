@@ -0,0 +1,129 @@
+package com.crowdmanagement.controller;
+
+import com.crowdmanagement.dto.AlertRuleRequest;
+import com.crowdmanagement.dto.AlertRuleResponse;
+import com.crowdmanagement.service.AlertRuleService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Alert Rule Controller
+ * ---------------------
+ * REST API for configurable alert rules.
+ * Multi-tenant: Uses X-User-Email header to identify the owner.
+ * Changes take effect on the next scan, without a restart.
+ *
+ * Endpoints:
+ * GET    /api/alert-rules        - Get all rules for current user
+ * POST   /api/alert-rules        - Create rule on an area or event
+ * PUT    /api/alert-rules/{id}   - Update rule
+ * DELETE /api/alert-rules/{id}   - Delete rule
+ * POST   /api/alert-rules/reload - Reload all rules from the database
+ */
+@RestController
+@RequestMapping("/api/alert-rules")
+public class AlertRuleController {
+
+    @Autowired
+    private AlertRuleService alertRuleService;
+
+    /**
+     * Get all rules for the current user
+     */
+    @GetMapping
+    public ResponseEntity<?> getAllRules(@RequestHeader(value = "X-User-Email", required = false) String ownerEmail) {
+        if (ownerEmail == null || ownerEmail.isEmpty()) {
+            return ResponseEntity.badRequest().body(errorResponse("X-User-Email header is required"));
+        }
+        List<AlertRuleResponse> rules = alertRuleService.getAllRules(ownerEmail);
+        return ResponseEntity.ok(rules);
+    }
+
+    /**
+     * Create a new rule
+     */
+    @PostMapping
+    public ResponseEntity<?> createRule(
+            @Valid @RequestBody AlertRuleRequest request,
+            @RequestHeader(value = "X-User-Email", required = false) String ownerEmail) {
+        if (ownerEmail == null || ownerEmail.isEmpty()) {
+            return ResponseEntity.badRequest().body(errorResponse("X-User-Email header is required"));
+        }
+        try {
+            AlertRuleResponse rule = alertRuleService.createRule(request, ownerEmail);
+            return ResponseEntity.status(HttpStatus.CREATED).body(rule);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Update an existing rule
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<?> updateRule(
+            @PathVariable Long id,
+            @Valid @RequestBody AlertRuleRequest request,
+            @RequestHeader(value = "X-User-Email", required = false) String ownerEmail) {
+        if (ownerEmail == null || ownerEmail.isEmpty()) {
+            return ResponseEntity.badRequest().body(errorResponse("X-User-Email header is required"));
+        }
+        try {
+            AlertRuleResponse rule = alertRuleService.updateRule(id, request, ownerEmail);
+            return ResponseEntity.ok(rule);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Delete a rule
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteRule(
+            @PathVariable Long id,
+            @RequestHeader(value = "X-User-Email", required = false) String ownerEmail) {
+        if (ownerEmail == null || ownerEmail.isEmpty()) {
+            return ResponseEntity.badRequest().body(errorResponse("X-User-Email header is required"));
+        }
+        try {
+            alertRuleService.deleteRule(id, ownerEmail);
+            return ResponseEntity.ok(successResponse("Alert rule deleted successfully"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(errorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Reload all rules from the database
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<?> reloadRules(
+            @RequestHeader(value = "X-User-Email", required = false) String ownerEmail) {
+        if (ownerEmail == null || ownerEmail.isEmpty()) {
+            return ResponseEntity.badRequest().body(errorResponse("X-User-Email header is required"));
+        }
+        alertRuleService.reloadRules();
+        return ResponseEntity.ok(successResponse("Alert rules reloaded"));
+    }
+
+    // Helper methods for response formatting
+    private Map<String, String> errorResponse(String message) {
+        Map<String, String> response = new HashMap<>();
+        response.put("error", message);
+        return response;
+    }
+
+    private Map<String, String> successResponse(String message) {
+        Map<String, String> response = new HashMap<>();
+        response.put("message", message);
+        return response;
+    }
+}
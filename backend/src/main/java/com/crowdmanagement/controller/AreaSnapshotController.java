@@ -0,0 +1,38 @@
+package com.crowdmanagement.controller;
+
+import com.crowdmanagement.service.AreaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+/**
+ * Area Snapshot Controller
+ * ------------------------
+ * Current area state for live dashboards, sent once to the subscribing
+ * session (no broker involved). Served from the occupancy store's memory
+ * when it is enabled, otherwise with one query for the areas.
+ *
+ * SUBSCRIBE /app/owner/{ownerEmail}/areas/snapshot - An owner's areas
+ * SUBSCRIBE /app/event/{eventId}/areas/snapshot    - An event's areas
+ *
+ * Subscribe to the matching .../areas/delta topic first, then take the
+ * snapshot: deltas with a seq not above the snapshot's are already in it.
+ * Access is checked by SubscriptionAuthorizationInterceptor.
+ */
+@Controller
+public class AreaSnapshotController {
+
+    @Autowired
+    private AreaService areaService;
+
+    @SubscribeMapping("/owner/{ownerEmail}/areas/snapshot")
+    public AreaService.AreaSnapshot ownerSnapshot(@DestinationVariable String ownerEmail) {
+        return areaService.getAreaSnapshot(ownerEmail, null);
+    }
+
+    @SubscribeMapping("/event/{eventId}/areas/snapshot")
+    public AreaService.AreaSnapshot eventSnapshot(@DestinationVariable Long eventId) {
+        return areaService.getAreaSnapshot(null, eventId);
+    }
+}
@@ -1,23 +1,37 @@
 package com.crowdmanagement.controller;
 
+import com.crowdmanagement.dto.ScanBatchResponse;
 import com.crowdmanagement.dto.ScanRequest;
 import com.crowdmanagement.dto.ScanResponse;
+import com.crowdmanagement.service.ScanAdmissionLimiter;
+import com.crowdmanagement.service.ScanIngestionService;
+import com.crowdmanagement.service.ScanMetrics;
 import com.crowdmanagement.service.ScanService;
+import com.crowdmanagement.service.ScanTimeoutException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Scan Controller
  * ---------------
  * REST API for QR code scan operations.
+ * Scan submissions pass an adaptive admission limit and are shed
+ * with 429 + Retry-After when the pipeline is saturated; a scan that
+ * timed out waiting for its shard is answered with 503 + Retry-After
+ * (a retry with the same scanId is deduplicated).
  * 
  * Endpoints:
  * POST /api/scans              - Process a new scan
+ * POST /api/scans/batch        - Process buffered scans from a device
  * GET  /api/scans/recent       - Get recent scans
  * GET  /api/scans/area/{id}    - Get scans for an area
  * GET  /api/scans/today        - Get today's scans
@@ -30,23 +44,106 @@ public class ScanController {
     @Autowired
     private ScanService scanService;
 
+    @Autowired
+    private ScanIngestionService scanIngestionService;
+
+    @Autowired
+    private ScanAdmissionLimiter admissionLimiter;
+
+    @Autowired
+    private ScanMetrics scanMetrics;
+
+    // Return the per-stage breakdown as a Server-Timing header
+    @Value("${app.scan.timing-header:false}")
+    private boolean timingHeader;
+
     /**
      * Process a QR code scan (entry or exit)
-     * @param request Scan details (areaId, scanType)
+     * @param request Scan details (areaId, scanType, optional scanId for idempotent retries)
      * @return Scan result with updated count
      */
     @PostMapping
     public ResponseEntity<?> processScan(@RequestBody ScanRequest request) {
+        ScanAdmissionLimiter.Permit permit = admissionLimiter.tryAcquire();
+        if (permit == null) {
+            scanMetrics.recordOutcome(request.getScanType(), "rejected");
+            return tooManyRequests();
+        }
+        ScanMetrics.Timings timings = scanMetrics.start();
         try {
-            ScanResponse response = scanService.processScan(request);
-            return ResponseEntity.ok(response);
+            ScanResponse response = scanIngestionService.ingest(request, timings);
+            permit.release();
+            return withTimings(ResponseEntity.ok(), timings).body(response);
+        } catch (RejectedExecutionException e) {
+            permit.releaseOverloaded();
+            return tooManyRequests();
+        } catch (ScanTimeoutException e) {
+            permit.releaseOverloaded();
+            return unavailable(e);
         } catch (RuntimeException e) {
+            permit.release();
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
             return ResponseEntity.badRequest().body(error);
         }
     }
 
+    /**
+     * Process a batch of buffered scans (scanner reconnecting with queued scans)
+     * @param requests Scans with optional device timestamps
+     * @return Per-item results in submission order
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> processBatch(@RequestBody List<ScanRequest> requests) {
+        ScanAdmissionLimiter.Permit permit = admissionLimiter.tryAcquire(requests.size());
+        if (permit == null) {
+            return tooManyRequests();
+        }
+        ScanMetrics.Timings timings = scanMetrics.start();
+        try {
+            ScanBatchResponse response = scanIngestionService.ingestBatch(requests, timings);
+            permit.release();
+            return withTimings(ResponseEntity.ok(), timings).body(response);
+        } catch (RejectedExecutionException e) {
+            permit.releaseOverloaded();
+            return tooManyRequests();
+        } catch (ScanTimeoutException e) {
+            permit.releaseOverloaded();
+            return unavailable(e);
+        } catch (RuntimeException e) {
+            permit.release();
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    private ResponseEntity.BodyBuilder withTimings(ResponseEntity.BodyBuilder builder, ScanMetrics.Timings timings) {
+        return timingHeader ? builder.header("Server-Timing", timings.toServerTiming()) : builder;
+    }
+
+    /**
+     * 429 with Retry-After, returned when the scan pipeline is saturated
+     */
+    private ResponseEntity<Map<String, String>> tooManyRequests() {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Scan service is busy, retry later");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(admissionLimiter.getRetryAfterSeconds()))
+                .body(error);
+    }
+
+    /**
+     * 503 with Retry-After, returned when a scan timed out waiting for its shard
+     */
+    private ResponseEntity<Map<String, String>> unavailable(ScanTimeoutException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage() + ", retry later");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(admissionLimiter.getRetryAfterSeconds()))
+                .body(error);
+    }
+
     /**
      * Get recent scans
      * @param limit Number of scans to return (default 50)
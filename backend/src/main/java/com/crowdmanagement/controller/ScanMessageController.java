@@ -0,0 +1,72 @@
+package com.crowdmanagement.controller;
+
+import com.crowdmanagement.dto.ScanAck;
+import com.crowdmanagement.dto.ScanRequest;
+import com.crowdmanagement.dto.ScanResponse;
+import com.crowdmanagement.service.ScanAdmissionLimiter;
+import com.crowdmanagement.service.ScanIngestionService;
+import com.crowdmanagement.service.ScanTimeoutException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Scan Message Controller
+ * -----------------------
+ * STOMP counterpart of POST /api/scans for scanners that keep a session open.
+ *
+ * SEND /app/scan        - Publish a scan (same body as POST /api/scans)
+ * SUBSCRIBE /user/queue/scan-acks - Acknowledgements for this session only
+ *
+ * Each ack echoes the scanId, so clients should set one to correlate replies.
+ */
+@Controller
+public class ScanMessageController {
+
+    @Autowired
+    private ScanIngestionService scanIngestionService;
+
+    @Autowired
+    private ScanAdmissionLimiter admissionLimiter;
+
+    /**
+     * Process a scan received over the STOMP session
+     * Returns as soon as the scan is queued on its shard, so the inbound
+     * channel thread is not held for the processing; the ack is sent when
+     * the scan completes.
+     * @param request Scan details (areaId, scanType, optional scanId)
+     * @return Ack routed back to the sending session
+     */
+    @MessageMapping("/scan")
+    @SendToUser(destinations = "/queue/scan-acks", broadcast = false)
+    public CompletableFuture<ScanAck> processScan(ScanRequest request) {
+        ScanAdmissionLimiter.Permit permit = admissionLimiter.tryAcquire();
+        if (permit == null) {
+            return CompletableFuture.completedFuture(ScanAck.failure(request.getScanId(), "Scan service is busy, retry later"));
+        }
+        CompletableFuture<ScanResponse> scan;
+        try {
+            scan = scanIngestionService.ingestAsync(request);
+        } catch (RuntimeException e) {
+            scan = CompletableFuture.failedFuture(e);
+        }
+        return scan.handle((response, error) -> {
+            if (error == null) {
+                permit.release();
+                return ScanAck.success(response);
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException || cause instanceof ScanTimeoutException) {
+                permit.releaseOverloaded();
+            } else {
+                permit.release();
+            }
+            return ScanAck.failure(request.getScanId(), cause.getMessage());
+        });
+    }
+}
@@ -0,0 +1,30 @@
+package com.crowdmanagement.controller;
+
+import com.crowdmanagement.service.WebSocketSessionMonitor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * WebSocket Stats Controller
+ * --------------------------
+ * Operational view of the STOMP server (not tenant-scoped).
+ *
+ * GET /api/websocket/stats - Slowest sessions (send queue depth), outbound
+ *                            rate per destination, channel executor load
+ *                            and the slow-consumer policy counters
+ */
+@RestController
+@RequestMapping("/api/websocket")
+public class WebSocketStatsController {
+
+    @Autowired
+    private WebSocketSessionMonitor webSocketSessionMonitor;
+
+    @GetMapping("/stats")
+    public ResponseEntity<WebSocketSessionMonitor.Stats> getStats() {
+        return ResponseEntity.ok(webSocketSessionMonitor.stats());
+    }
+}
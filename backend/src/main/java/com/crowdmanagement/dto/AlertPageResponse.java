@@ -0,0 +1,31 @@
+package com.crowdmanagement.dto;
+
+import java.util.List;
+
+/**
+ * Alert Page Response DTO
+ * -----------------------
+ * One page of GET /api/alerts, newest first.
+ * Pass nextCursor back as `cursor` to fetch the following page;
+ * it is null on the last page.
+ */
+public class AlertPageResponse {
+    private List<AlertResponse> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public AlertPageResponse() {}
+
+    public AlertPageResponse(List<AlertResponse> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    public List<AlertResponse> getItems() { return items; }
+    public void setItems(List<AlertResponse> items) { this.items = items; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
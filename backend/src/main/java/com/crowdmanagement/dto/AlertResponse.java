@@ -29,6 +29,8 @@ public class AlertResponse {
     private Integer capacity;
     private LocalDateTime createdAt;
     private LocalDateTime resolvedAt;
+    private Integer occurrenceCount;
+    private LocalDateTime lastOccurredAt;
 
     public AlertResponse() {}
 
@@ -49,6 +51,8 @@ public class AlertResponse {
         response.setCapacity(alert.getCapacity());
         response.setCreatedAt(alert.getCreatedAt());
         response.setResolvedAt(alert.getResolvedAt());
+        response.setOccurrenceCount(alert.getOccurrenceCount() != null ? alert.getOccurrenceCount() : 1);
+        response.setLastOccurredAt(alert.getLastOccurredAt() != null ? alert.getLastOccurredAt() : alert.getCreatedAt());
         
         // Get event name from area's event if available
         if (alert.getArea() != null && alert.getArea().getEvent() != null) {
@@ -66,6 +70,14 @@ public class AlertResponse {
                 return "Threshold Breach";
             case RAPID_INFLOW:
                 return "Rapid Inflow";
+            case OUTFLOW_SURGE:
+                return "Outflow Surge";
+            case SUSTAINED_OCCUPANCY:
+                return "Sustained Occupancy";
+            case CUSTOM_THRESHOLD:
+                return "Custom Threshold";
+            case CAPACITY_FORECAST:
+                return "Capacity Forecast";
             default:
                 return type.name();
         }
@@ -119,4 +131,10 @@ public class AlertResponse {
 
     public LocalDateTime getResolvedAt() { return resolvedAt; }
     public void setResolvedAt(LocalDateTime resolvedAt) { this.resolvedAt = resolvedAt; }
+
+    public Integer getOccurrenceCount() { return occurrenceCount; }
+    public void setOccurrenceCount(Integer occurrenceCount) { this.occurrenceCount = occurrenceCount; }
+
+    public LocalDateTime getLastOccurredAt() { return lastOccurredAt; }
+    public void setLastOccurredAt(LocalDateTime lastOccurredAt) { this.lastOccurredAt = lastOccurredAt; }
 }
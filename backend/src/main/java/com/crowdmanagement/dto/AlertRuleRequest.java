@@ -0,0 +1,48 @@
+package com.crowdmanagement.dto;
+
+import com.crowdmanagement.entity.AlertRuleType;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Alert Rule Request DTO
+ * ----------------------
+ * Used for creating/updating alert rules. Set either areaId or eventId.
+ */
+public class AlertRuleRequest {
+
+    private Long areaId;
+
+    private Long eventId;
+
+    @NotNull(message = "Rule type is required")
+    private AlertRuleType ruleType;
+
+    private Integer count;
+
+    private Integer windowSeconds;
+
+    private Double percentage;
+
+    private Integer durationMinutes;
+
+    private Boolean enabled = true;
+
+    public AlertRuleRequest() {}
+
+    public Long getAreaId() { return areaId; }
+    public void setAreaId(Long areaId) { this.areaId = areaId; }
+    public Long getEventId() { return eventId; }
+    public void setEventId(Long eventId) { this.eventId = eventId; }
+    public AlertRuleType getRuleType() { return ruleType; }
+    public void setRuleType(AlertRuleType ruleType) { this.ruleType = ruleType; }
+    public Integer getCount() { return count; }
+    public void setCount(Integer count) { this.count = count; }
+    public Integer getWindowSeconds() { return windowSeconds; }
+    public void setWindowSeconds(Integer windowSeconds) { this.windowSeconds = windowSeconds; }
+    public Double getPercentage() { return percentage; }
+    public void setPercentage(Double percentage) { this.percentage = percentage; }
+    public Integer getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(Integer durationMinutes) { this.durationMinutes = durationMinutes; }
+    public Boolean getEnabled() { return enabled; }
+    public void setEnabled(Boolean enabled) { this.enabled = enabled; }
+}
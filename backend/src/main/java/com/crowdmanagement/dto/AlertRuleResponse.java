@@ -0,0 +1,73 @@
+package com.crowdmanagement.dto;
+
+import com.crowdmanagement.entity.AlertRule;
+import com.crowdmanagement.entity.AlertRuleType;
+import com.crowdmanagement.entity.AlertType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Alert Rule Response DTO
+ * -----------------------
+ * Response object for AlertRule entity.
+ */
+public class AlertRuleResponse {
+
+    private Long id;
+    private Long areaId;
+    private Long eventId;
+    private AlertRuleType ruleType;
+    private AlertType alertType;
+    private Integer count;
+    private Integer windowSeconds;
+    private Double percentage;
+    private Integer durationMinutes;
+    private Boolean enabled;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public AlertRuleResponse() {}
+
+    public static AlertRuleResponse fromEntity(AlertRule rule) {
+        AlertRuleResponse response = new AlertRuleResponse();
+        response.setId(rule.getId());
+        response.setAreaId(rule.getAreaId());
+        response.setEventId(rule.getEventId());
+        response.setRuleType(rule.getRuleType());
+        response.setAlertType(rule.getRuleType().getAlertType());
+        response.setCount(rule.getCount());
+        response.setWindowSeconds(rule.getWindowSeconds());
+        response.setPercentage(rule.getPercentage());
+        response.setDurationMinutes(rule.getDurationMinutes());
+        response.setEnabled(rule.getEnabled());
+        response.setCreatedAt(rule.getCreatedAt());
+        response.setUpdatedAt(rule.getUpdatedAt());
+        return response;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getAreaId() { return areaId; }
+    public void setAreaId(Long areaId) { this.areaId = areaId; }
+    public Long getEventId() { return eventId; }
+    public void setEventId(Long eventId) { this.eventId = eventId; }
+    public AlertRuleType getRuleType() { return ruleType; }
+    public void setRuleType(AlertRuleType ruleType) { this.ruleType = ruleType; }
+    public AlertType getAlertType() { return alertType; }
+    public void setAlertType(AlertType alertType) { this.alertType = alertType; }
+    public Integer getCount() { return count; }
+    public void setCount(Integer count) { this.count = count; }
+    public Integer getWindowSeconds() { return windowSeconds; }
+    public void setWindowSeconds(Integer windowSeconds) { this.windowSeconds = windowSeconds; }
+    public Double getPercentage() { return percentage; }
+    public void setPercentage(Double percentage) { this.percentage = percentage; }
+    public Integer getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(Integer durationMinutes) { this.durationMinutes = durationMinutes; }
+    public Boolean getEnabled() { return enabled; }
+    public void setEnabled(Boolean enabled) { this.enabled = enabled; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -1,6 +1,7 @@
 package com.crowdmanagement.dto;
 
 import com.crowdmanagement.entity.Area;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * Area Response DTO
@@ -18,6 +19,13 @@ public class AreaResponse {
     private Double occupancyPercentage;
     private Boolean generateQr;
     private Long eventId;
+    // Forecast (InflowForecaster): null minutes = already there or not filling up
+    private Double netInflowPerMinute;
+    private Double minutesToThreshold;
+    private Double minutesToCapacity;
+    // Routes live updates to the owner's topics; never serialized
+    @JsonIgnore
+    private String ownerEmail;
 
     public AreaResponse() {}
 
@@ -36,19 +44,30 @@ public class AreaResponse {
     }
 
     public static AreaResponse fromEntity(Area area) {
+        return fromEntity(area, area.getCurrentCount());
+    }
+
+    /**
+     * Build a response with an explicit count (the live in-memory counter)
+     * instead of the possibly stale value on the entity.
+     */
+    public static AreaResponse fromEntity(Area area, int currentCount) {
         AreaResponse response = new AreaResponse();
         response.setId(area.getId());
         response.setName(area.getName());
         response.setCapacity(area.getCapacity());
         response.setThreshold(area.getThreshold());
-        response.setCurrentCount(area.getCurrentCount());
-        response.setStatus(area.getStatus());
-        response.setOccupancyPercentage(area.getOccupancyPercentage());
+        response.setCurrentCount(currentCount);
+        response.setStatus(Area.statusFor(currentCount, area.getThreshold(), area.getCapacity()));
+        response.setOccupancyPercentage(Area.occupancyFor(currentCount, area.getCapacity()));
         response.setGenerateQr(area.getGenerateQr());
         response.setEventId(area.getEventId());
+        response.setOwnerEmail(area.getOwnerEmail());
         return response;
     }
 
+    public String getOwnerEmail() { return ownerEmail; }
+    public void setOwnerEmail(String ownerEmail) { this.ownerEmail = ownerEmail; }
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     public String getName() { return name; }
@@ -67,4 +86,10 @@ public class AreaResponse {
     public void setGenerateQr(Boolean generateQr) { this.generateQr = generateQr; }
     public Long getEventId() { return eventId; }
     public void setEventId(Long eventId) { this.eventId = eventId; }
+    public Double getNetInflowPerMinute() { return netInflowPerMinute; }
+    public void setNetInflowPerMinute(Double netInflowPerMinute) { this.netInflowPerMinute = netInflowPerMinute; }
+    public Double getMinutesToThreshold() { return minutesToThreshold; }
+    public void setMinutesToThreshold(Double minutesToThreshold) { this.minutesToThreshold = minutesToThreshold; }
+    public Double getMinutesToCapacity() { return minutesToCapacity; }
+    public void setMinutesToCapacity(Double minutesToCapacity) { this.minutesToCapacity = minutesToCapacity; }
 }
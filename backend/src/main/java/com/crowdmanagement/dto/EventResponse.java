@@ -1,9 +1,11 @@
 package com.crowdmanagement.dto;
 
+import com.crowdmanagement.entity.Area;
 import com.crowdmanagement.entity.Event;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -31,6 +33,13 @@ public class EventResponse {
     public EventResponse() {}
 
     public static EventResponse fromEntity(Event event) {
+        return fromEntity(event, Area::getCurrentCount);
+    }
+
+    /**
+     * Build a response using live area counts supplied by the caller
+     */
+    public static EventResponse fromEntity(Event event, ToIntFunction<Area> currentCount) {
         EventResponse response = new EventResponse();
         response.setId(event.getId());
         response.setName(event.getName());
@@ -41,16 +50,18 @@ public class EventResponse {
         response.setStatus(event.getStatus());
         response.setTotalAreas(event.getAreas().size());
         response.setTotalCapacity(event.getTotalCapacity());
-        response.setTotalCurrentCount(event.getTotalCurrentCount());
-        
+
         // Calculate occupancy percentage
         int capacity = event.getTotalCapacity();
-        int current = event.getTotalCurrentCount();
+        int current = event.getAreas().stream()
+                .mapToInt(currentCount)
+                .sum();
+        response.setTotalCurrentCount(current);
         response.setOccupancyPercentage(capacity > 0 ? (double) current / capacity * 100 : 0);
         
         // Convert areas to response DTOs
         response.setAreas(event.getAreas().stream()
-                .map(AreaResponse::fromEntity)
+                .map(area -> AreaResponse.fromEntity(area, currentCount.applyAsInt(area)))
                 .collect(Collectors.toList()));
         
         response.setCreatedAt(event.getCreatedAt());
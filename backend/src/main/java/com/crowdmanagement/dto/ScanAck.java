@@ -0,0 +1,43 @@
+package com.crowdmanagement.dto;
+
+import java.util.UUID;
+
+/**
+ * Scan Ack DTO
+ * ------------
+ * Reply to a scan published over STOMP (/app/scan).
+ * Delivered on the sender's session queue /user/queue/scan-acks.
+ */
+public class ScanAck {
+    private UUID scanId;
+    private boolean success;
+    private ScanResponse scan;
+    private String error;
+
+    public ScanAck() {}
+
+    public static ScanAck success(ScanResponse scan) {
+        ScanAck ack = new ScanAck();
+        ack.setScanId(scan.getScanId());
+        ack.setSuccess(true);
+        ack.setScan(scan);
+        return ack;
+    }
+
+    public static ScanAck failure(UUID scanId, String error) {
+        ScanAck ack = new ScanAck();
+        ack.setScanId(scanId);
+        ack.setSuccess(false);
+        ack.setError(error);
+        return ack;
+    }
+
+    public UUID getScanId() { return scanId; }
+    public void setScanId(UUID scanId) { this.scanId = scanId; }
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+    public ScanResponse getScan() { return scan; }
+    public void setScan(ScanResponse scan) { this.scan = scan; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
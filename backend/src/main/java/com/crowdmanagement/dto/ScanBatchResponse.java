@@ -0,0 +1,88 @@
+package com.crowdmanagement.dto;
+
+import com.crowdmanagement.entity.ScanType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Scan Batch Response DTO
+ * -----------------------
+ * Returned by POST /api/scans/batch.
+ * Contains one result per submitted scan, in submission order.
+ */
+public class ScanBatchResponse {
+    private int accepted;
+    private int rejected;
+    private List<ItemResult> results;
+
+    public ScanBatchResponse() {}
+
+    public ScanBatchResponse(List<ItemResult> results) {
+        this.results = results;
+        this.accepted = (int) results.stream().filter(ItemResult::isSuccess).count();
+        this.rejected = results.size() - accepted;
+    }
+
+    public int getAccepted() { return accepted; }
+    public void setAccepted(int accepted) { this.accepted = accepted; }
+    public int getRejected() { return rejected; }
+    public void setRejected(int rejected) { this.rejected = rejected; }
+    public List<ItemResult> getResults() { return results; }
+    public void setResults(List<ItemResult> results) { this.results = results; }
+
+    /**
+     * Result for a single scan of the batch
+     */
+    public static class ItemResult {
+        private int index;
+        private boolean success;
+        private Long areaId;
+        private String areaName;
+        private ScanType scanType;
+        private LocalDateTime timestamp;
+        private Integer newCount;
+        private String error;
+
+        public ItemResult() {}
+
+        public static ItemResult success(int index, Long areaId, String areaName, ScanType scanType,
+                                         LocalDateTime timestamp, Integer newCount) {
+            ItemResult result = new ItemResult();
+            result.setIndex(index);
+            result.setSuccess(true);
+            result.setAreaId(areaId);
+            result.setAreaName(areaName);
+            result.setScanType(scanType);
+            result.setTimestamp(timestamp);
+            result.setNewCount(newCount);
+            return result;
+        }
+
+        public static ItemResult failure(int index, Long areaId, String error) {
+            ItemResult result = new ItemResult();
+            result.setIndex(index);
+            result.setSuccess(false);
+            result.setAreaId(areaId);
+            result.setError(error);
+            return result;
+        }
+
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+        public boolean isSuccess() { return success; }
+        public void setSuccess(boolean success) { this.success = success; }
+        public Long getAreaId() { return areaId; }
+        public void setAreaId(Long areaId) { this.areaId = areaId; }
+        public String getAreaName() { return areaName; }
+        public void setAreaName(String areaName) { this.areaName = areaName; }
+        public ScanType getScanType() { return scanType; }
+        public void setScanType(ScanType scanType) { this.scanType = scanType; }
+        public LocalDateTime getTimestamp() { return timestamp; }
+        public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+        public Integer getNewCount() { return newCount; }
+        public void setNewCount(Integer newCount) { this.newCount = newCount; }
+        public String getError() { return error; }
+        public void setError(String error) { this.error = error; }
+    }
+}
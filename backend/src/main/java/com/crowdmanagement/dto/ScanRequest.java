@@ -2,14 +2,23 @@ package com.crowdmanagement.dto;
 
 import com.crowdmanagement.entity.ScanType;
 
+import java.time.LocalDateTime;
+import java.util.UUID;
+
 /**
  * Scan Request DTO
  * ----------------
  * Used when registering a new scan.
+ * timestamp is the device time for buffered scans replayed via /api/scans/batch
+ * (optional, defaults to the time the server receives the scan).
+ * scanId is an optional client-generated UUID; retries with the same ID are
+ * answered with the original result instead of being counted again.
  */
 public class ScanRequest {
     private Long areaId;
     private ScanType scanType;
+    private LocalDateTime timestamp;
+    private UUID scanId;
 
     public ScanRequest() {}
 
@@ -22,4 +31,8 @@ public class ScanRequest {
     public void setAreaId(Long areaId) { this.areaId = areaId; }
     public ScanType getScanType() { return scanType; }
     public void setScanType(ScanType scanType) { this.scanType = scanType; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+    public UUID getScanId() { return scanId; }
+    public void setScanId(UUID scanId) { this.scanId = scanId; }
 }
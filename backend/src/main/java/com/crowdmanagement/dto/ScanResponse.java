@@ -4,6 +4,7 @@ import com.crowdmanagement.entity.ScanLog;
 import com.crowdmanagement.entity.ScanType;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 /**
  * Scan Response DTO
@@ -17,6 +18,7 @@ public class ScanResponse {
     private ScanType scanType;
     private LocalDateTime timestamp;
     private Integer newCount;
+    private UUID scanId;
 
     public ScanResponse() {}
 
@@ -53,4 +55,6 @@ public class ScanResponse {
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
     public Integer getNewCount() { return newCount; }
     public void setNewCount(Integer newCount) { this.newCount = newCount; }
+    public UUID getScanId() { return scanId; }
+    public void setScanId(UUID scanId) { this.scanId = scanId; }
 }
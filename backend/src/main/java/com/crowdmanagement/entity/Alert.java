@@ -9,9 +9,16 @@ import java.time.LocalDateTime;
  * ------------
  * Represents an alert generated when an area exceeds thresholds.
  * Multi-tenant: Each alert belongs to a specific owner.
+ * Indexes: (owner, [status | type], created_at, id) and (area, created_at, id)
+ * back the keyset-paginated alert query (AlertQueryRepository).
  */
 @Entity
-@Table(name = "alerts")
+@Table(name = "alerts", indexes = {
+    @Index(name = "idx_alerts_owner_created", columnList = "owner_email, created_at, id"),
+    @Index(name = "idx_alerts_owner_status_created", columnList = "owner_email, status, created_at, id"),
+    @Index(name = "idx_alerts_owner_type_created", columnList = "owner_email, alert_type, created_at, id"),
+    @Index(name = "idx_alerts_area_created", columnList = "area_id, created_at, id")
+})
 public class Alert {
 
     @Id
@@ -61,6 +68,13 @@ public class Alert {
     @Column(name = "resolved_at")
     private LocalDateTime resolvedAt;
 
+    // Repeats folded into this alert instead of raising a new one
+    @Column(name = "occurrence_count")
+    private Integer occurrenceCount = 1;
+
+    @Column(name = "last_occurred_at")
+    private LocalDateTime lastOccurredAt;
+
     public Alert() {}
 
     public Alert(Area area, AlertType alertType, String message) {
@@ -80,12 +94,14 @@ public class Alert {
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        lastOccurredAt = createdAt;
     }
 
     // Helper method to check if alert is critical
     @Transient
     public boolean isCritical() {
-        return alertType == AlertType.OVERCROWDING || alertType == AlertType.RAPID_INFLOW;
+        return alertType == AlertType.OVERCROWDING || alertType == AlertType.RAPID_INFLOW
+                || alertType == AlertType.OUTFLOW_SURGE;
     }
 
     // Helper method to get severity label
@@ -131,6 +147,12 @@ public class Alert {
     public LocalDateTime getResolvedAt() { return resolvedAt; }
     public void setResolvedAt(LocalDateTime resolvedAt) { this.resolvedAt = resolvedAt; }
 
+    public Integer getOccurrenceCount() { return occurrenceCount; }
+    public void setOccurrenceCount(Integer occurrenceCount) { this.occurrenceCount = occurrenceCount; }
+
+    public LocalDateTime getLastOccurredAt() { return lastOccurredAt; }
+    public void setLastOccurredAt(LocalDateTime lastOccurredAt) { this.lastOccurredAt = lastOccurredAt; }
+
     public Long getAreaId() { return areaId; }
     public void setAreaId(Long areaId) { this.areaId = areaId; }
 
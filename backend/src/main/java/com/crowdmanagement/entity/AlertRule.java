@@ -0,0 +1,102 @@
+package com.crowdmanagement.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Alert Rule Entity
+ * -----------------
+ * A configurable alert condition attached to one area or to every area of
+ * an event (exactly one of areaId / eventId is set).
+ * Multi-tenant: Each rule belongs to a specific owner.
+ *
+ * Parameters by rule type:
+ * INFLOW_RATE / OUTFLOW_SURGE - count scans within windowSeconds
+ * SUSTAINED_OCCUPANCY         - percentage of capacity held for durationMinutes
+ * OCCUPANCY_PERCENT           - percentage of capacity
+ */
+@Entity
+@Table(name = "alert_rules", indexes = {
+    @Index(name = "idx_alert_rules_area", columnList = "area_id"),
+    @Index(name = "idx_alert_rules_event", columnList = "event_id")
+})
+public class AlertRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "owner_email", nullable = false, length = 100)
+    private String ownerEmail;
+
+    @Column(name = "area_id")
+    private Long areaId;
+
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rule_type", nullable = false, length = 30)
+    private AlertRuleType ruleType;
+
+    @Column(name = "scan_count")
+    private Integer count;
+
+    @Column(name = "window_seconds")
+    private Integer windowSeconds;
+
+    @Column(name = "percentage")
+    private Double percentage;
+
+    @Column(name = "duration_minutes")
+    private Integer durationMinutes;
+
+    @Column(name = "enabled", nullable = false)
+    private Boolean enabled = true;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public AlertRule() {}
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getOwnerEmail() { return ownerEmail; }
+    public void setOwnerEmail(String ownerEmail) { this.ownerEmail = ownerEmail; }
+    public Long getAreaId() { return areaId; }
+    public void setAreaId(Long areaId) { this.areaId = areaId; }
+    public Long getEventId() { return eventId; }
+    public void setEventId(Long eventId) { this.eventId = eventId; }
+    public AlertRuleType getRuleType() { return ruleType; }
+    public void setRuleType(AlertRuleType ruleType) { this.ruleType = ruleType; }
+    public Integer getCount() { return count; }
+    public void setCount(Integer count) { this.count = count; }
+    public Integer getWindowSeconds() { return windowSeconds; }
+    public void setWindowSeconds(Integer windowSeconds) { this.windowSeconds = windowSeconds; }
+    public Double getPercentage() { return percentage; }
+    public void setPercentage(Double percentage) { this.percentage = percentage; }
+    public Integer getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(Integer durationMinutes) { this.durationMinutes = durationMinutes; }
+    public Boolean getEnabled() { return enabled; }
+    public void setEnabled(Boolean enabled) { this.enabled = enabled; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,23 @@
+package com.crowdmanagement.entity;
+
+/**
+ * Alert Rule Type Enum
+ * --------------------
+ * Kinds of configurable alert rules and the alert each one raises.
+ */
+public enum AlertRuleType {
+    INFLOW_RATE(AlertType.RAPID_INFLOW),                 // count entries within windowSeconds
+    OUTFLOW_SURGE(AlertType.OUTFLOW_SURGE),              // count exits within windowSeconds
+    SUSTAINED_OCCUPANCY(AlertType.SUSTAINED_OCCUPANCY),  // occupancy >= percentage for durationMinutes
+    OCCUPANCY_PERCENT(AlertType.CUSTOM_THRESHOLD);       // occupancy crosses percentage
+
+    private final AlertType alertType;
+
+    AlertRuleType(AlertType alertType) {
+        this.alertType = alertType;
+    }
+
+    public AlertType getAlertType() {
+        return alertType;
+    }
+}
@@ -6,7 +6,11 @@ package com.crowdmanagement.entity;
  * Defines the types of alerts that can be generated.
  */
 public enum AlertType {
-    OVERCROWDING,       // Critical - Area is at or over capacity
-    THRESHOLD_BREACH,   // Warning - Area has exceeded threshold but below capacity
-    RAPID_INFLOW        // Critical - Sudden surge in entries detected
+    OVERCROWDING,         // Critical - Area is at or over capacity
+    THRESHOLD_BREACH,     // Warning - Area has exceeded threshold but below capacity
+    RAPID_INFLOW,         // Critical - Sudden surge in entries detected
+    OUTFLOW_SURGE,        // Critical - Sudden surge in exits detected (alert rule)
+    SUSTAINED_OCCUPANCY,  // Warning - Occupancy stayed above a level too long (alert rule)
+    CUSTOM_THRESHOLD,     // Warning - Occupancy crossed a custom percentage (alert rule)
+    CAPACITY_FORECAST     // Warning - Net inflow will fill the area within the forecast horizon
 }
@@ -86,19 +86,33 @@ public class Area {
 
     @Transient
     public String getStatus() {
-        if (currentCount >= capacity) {
+        return statusFor(currentCount, threshold, capacity);
+    }
+
+    @Transient
+    public double getOccupancyPercentage() {
+        return occupancyFor(currentCount, capacity);
+    }
+
+    /**
+     * Status for an arbitrary count (e.g. a live in-memory counter)
+     */
+    public static String statusFor(int count, int threshold, int capacity) {
+        if (count >= capacity) {
             return "RED";
-        } else if (currentCount >= threshold) {
+        } else if (count >= threshold) {
             return "YELLOW";
         } else {
             return "GREEN";
         }
     }
 
-    @Transient
-    public double getOccupancyPercentage() {
+    /**
+     * Occupancy percentage for an arbitrary count
+     */
+    public static double occupancyFor(int count, int capacity) {
         if (capacity == 0) return 0;
-        return (double) currentCount / capacity * 100;
+        return (double) count / capacity * 100;
     }
 
     public Long getId() { return id; }
@@ -0,0 +1,87 @@
+package com.crowdmanagement.repository;
+
+import com.crowdmanagement.entity.Alert;
+import com.crowdmanagement.entity.AlertStatus;
+import com.crowdmanagement.entity.AlertType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Alert Query Repository
+ * ----------------------
+ * Multi-filter alert query with keyset pagination on (createdAt, id).
+ *
+ * The JPQL only contains the predicates of the filters that are set, so
+ * each filter combination maps to one of the composite indexes on alerts
+ * (owner + optional status / type / area, then created_at, id). Pages
+ * continue strictly after the last row of the previous page, so page N
+ * costs the same as page 1, however deep.
+ */
+@Repository
+public class AlertQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Find one page of alerts, newest first
+     * @param filter Owner plus optional filters
+     * @param after Last row of the previous page, or null for the first page
+     * @param limit Maximum rows to return
+     */
+    public List<Alert> findPage(Filter filter, Cursor after, int limit) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT a FROM Alert a LEFT JOIN FETCH a.area ar LEFT JOIN FETCH ar.event WHERE a.ownerEmail = :ownerEmail");
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("ownerEmail", filter.ownerEmail());
+
+        if (filter.areaId() != null) {
+            jpql.append(" AND a.areaId = :areaId");
+            params.put("areaId", filter.areaId());
+        }
+        if (filter.status() != null) {
+            jpql.append(" AND a.status = :status");
+            params.put("status", filter.status());
+        }
+        if (filter.alertType() != null) {
+            jpql.append(" AND a.alertType = :alertType");
+            params.put("alertType", filter.alertType());
+        }
+        if (filter.from() != null) {
+            jpql.append(" AND a.createdAt >= :from");
+            params.put("from", filter.from());
+        }
+        if (filter.to() != null) {
+            jpql.append(" AND a.createdAt <= :to");
+            params.put("to", filter.to());
+        }
+        if (after != null) {
+            jpql.append(" AND (a.createdAt < :afterCreatedAt OR (a.createdAt = :afterCreatedAt AND a.id < :afterId))");
+            params.put("afterCreatedAt", after.createdAt());
+            params.put("afterId", after.id());
+        }
+        jpql.append(" ORDER BY a.createdAt DESC, a.id DESC");
+
+        TypedQuery<Alert> query = entityManager.createQuery(jpql.toString(), Alert.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Query filters; every field but ownerEmail is optional
+     */
+    public record Filter(String ownerEmail, Long areaId, AlertStatus status, AlertType alertType,
+                         LocalDateTime from, LocalDateTime to) {}
+
+    /**
+     * Keyset position: the (createdAt, id) of the last row returned
+     */
+    public record Cursor(LocalDateTime createdAt, Long id) {}
+}
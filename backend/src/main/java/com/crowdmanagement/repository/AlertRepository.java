@@ -4,9 +4,11 @@ import com.crowdmanagement.entity.Alert;
 import com.crowdmanagement.entity.AlertStatus;
 import com.crowdmanagement.entity.AlertType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -45,6 +47,12 @@ public interface AlertRepository extends JpaRepository<Alert, Long> {
     @Query("SELECT a FROM Alert a WHERE a.area.id = :areaId AND a.alertType = :alertType AND a.status <> com.crowdmanagement.entity.AlertStatus.RESOLVED")
     List<Alert> findUnresolvedByAreaAndType(@Param("areaId") Long areaId, @Param("alertType") AlertType alertType);
 
+    /**
+     * Find every unresolved alert (startup load of the active alert index)
+     */
+    @Query("SELECT a FROM Alert a WHERE a.status <> com.crowdmanagement.entity.AlertStatus.RESOLVED")
+    List<Alert> findAllUnresolved();
+
     /**
      * Find alerts within a date range for an owner
      */
@@ -77,4 +85,40 @@ public interface AlertRepository extends JpaRepository<Alert, Long> {
      */
     @Query("SELECT a FROM Alert a WHERE a.area.id = :areaId AND a.status <> com.crowdmanagement.entity.AlertStatus.RESOLVED AND a.alertType = :alertType")
     List<Alert> findAlertsToAutoResolve(@Param("areaId") Long areaId, @Param("alertType") AlertType alertType);
+
+    /**
+     * Mark every unread alert of an owner as read in one statement
+     * @return Number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE Alert a SET a.status = com.crowdmanagement.entity.AlertStatus.READ WHERE a.ownerEmail = :ownerEmail AND a.status = com.crowdmanagement.entity.AlertStatus.UNREAD")
+    int markAllAsRead(@Param("ownerEmail") String ownerEmail);
+
+    /**
+     * Resolve the unresolved alerts of one type for an area in one statement
+     * @return Number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE Alert a SET a.status = com.crowdmanagement.entity.AlertStatus.RESOLVED, a.resolvedAt = :resolvedAt WHERE a.areaId = :areaId AND a.alertType = :alertType AND a.status <> com.crowdmanagement.entity.AlertStatus.RESOLVED")
+    int resolveByAreaAndType(@Param("areaId") Long areaId, @Param("alertType") AlertType alertType,
+                             @Param("resolvedAt") LocalDateTime resolvedAt);
+
+    /**
+     * Resolve every unresolved alert of an event's areas in one statement
+     * @return Number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE Alert a SET a.status = com.crowdmanagement.entity.AlertStatus.RESOLVED, a.resolvedAt = :resolvedAt WHERE a.ownerEmail = :ownerEmail AND a.status <> com.crowdmanagement.entity.AlertStatus.RESOLVED AND a.areaId IN (SELECT ar.id FROM Area ar WHERE ar.event.id = :eventId)")
+    int resolveAllForEvent(@Param("eventId") Long eventId, @Param("ownerEmail") String ownerEmail,
+                           @Param("resolvedAt") LocalDateTime resolvedAt);
+
+    /**
+     * Fold repeats into an existing alert (bulk update, no entity load)
+     * Also called from the repeat flusher's own thread, hence its own transaction.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Alert a SET a.occurrenceCount = COALESCE(a.occurrenceCount, 1) + :repeats, a.lastOccurredAt = :occurredAt, a.currentCount = :currentCount WHERE a.id = :id")
+    int recordOccurrences(@Param("id") Long id, @Param("repeats") int repeats,
+                          @Param("currentCount") Integer currentCount, @Param("occurredAt") LocalDateTime occurredAt);
 }
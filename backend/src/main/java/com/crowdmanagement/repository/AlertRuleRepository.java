@@ -0,0 +1,32 @@
+package com.crowdmanagement.repository;
+
+import com.crowdmanagement.entity.AlertRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Alert Rule Repository
+ * ---------------------
+ * Data access for AlertRule entities.
+ */
+@Repository
+public interface AlertRuleRepository extends JpaRepository<AlertRule, Long> {
+
+    /**
+     * Find all rules of an owner
+     */
+    List<AlertRule> findByOwnerEmailOrderByIdAsc(String ownerEmail);
+
+    /**
+     * Find a rule by ID and owner
+     */
+    Optional<AlertRule> findByIdAndOwnerEmail(Long id, String ownerEmail);
+
+    /**
+     * Find every enabled rule (compiled by the rule engine)
+     */
+    List<AlertRule> findByEnabledTrue();
+}
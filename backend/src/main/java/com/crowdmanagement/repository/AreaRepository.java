@@ -1,12 +1,15 @@
 package com.crowdmanagement.repository;
 
 import com.crowdmanagement.entity.Area;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -54,6 +57,11 @@ public interface AreaRepository extends JpaRepository<Area, Long> {
      */
     List<Area> findAllByOrderByNameAsc();
 
+    /**
+     * Find all areas of an event
+     */
+    List<Area> findByEventIdOrderByNameAsc(Long eventId);
+
     /**
      * Find areas where current count is at or above threshold for a specific owner
      */
@@ -66,6 +74,13 @@ public interface AreaRepository extends JpaRepository<Area, Long> {
     @Query("SELECT a FROM Area a WHERE a.ownerEmail = :ownerEmail AND a.currentCount >= a.capacity")
     List<Area> findAreasAtCapacityByOwner(@Param("ownerEmail") String ownerEmail);
 
+    /**
+     * Load and row-lock several areas at once (bulk scan ingestion)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Area a WHERE a.id IN :ids")
+    List<Area> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
     /**
      * Increment the current count for an area (for entry scan)
      * Uses native query for atomic operation
@@ -108,4 +123,16 @@ public interface AreaRepository extends JpaRepository<Area, Long> {
     @Modifying
     @Query("UPDATE Area a SET a.currentCount = 0, a.updatedAt = CURRENT_TIMESTAMP")
     int resetAllCounts();
+
+    /**
+     * Update an area's name, capacity and threshold without touching its count
+     * (the count may be ahead in memory, see OccupancyStore)
+     * 
+     * @param areaId The ID of the area
+     * @return Number of rows updated
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Area a SET a.name = :name, a.capacity = :capacity, a.threshold = :threshold, a.updatedAt = CURRENT_TIMESTAMP WHERE a.id = :areaId")
+    int updateConfig(@Param("areaId") Long areaId, @Param("name") String name,
+                     @Param("capacity") Integer capacity, @Param("threshold") Integer threshold);
 }
@@ -0,0 +1,210 @@
+package com.crowdmanagement.repository;
+
+import com.crowdmanagement.entity.Area;
+import com.crowdmanagement.entity.Event;
+import com.crowdmanagement.entity.ScanType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scan Commit Repository
+ * ----------------------
+ * Commits a scan (counter update + scan log insert) with as few
+ * database round trips as the dialect allows.
+ *
+ * PostgreSQL: one statement. The UPDATE ... RETURNING hands the new count
+ * and thresholds to an INSERT ... SELECT in the same CTE.
+ * Other databases (MySQL): UPDATE, re-read of the locked row, INSERT.
+ */
+@Repository
+public class ScanCommitRepository {
+
+    private static final String POSTGRES_COMMIT_SQL =
+            "WITH updated AS (" +
+            "  UPDATE areas SET current_count = GREATEST(current_count + ?, 0), updated_at = ?" +
+            "  WHERE id = ?" +
+            "  RETURNING id, name, owner_email, event_id, capacity, threshold, current_count, generate_qr" +
+            "), logged AS (" +
+            "  INSERT INTO scan_logs (area_id, scan_type, timestamp)" +
+            "  SELECT id, ?, ? FROM updated" +
+            "  RETURNING id, area_id" +
+            ") " +
+            "SELECT u.id, u.name, u.owner_email, u.event_id, u.capacity, u.threshold, u.current_count, " +
+            "u.generate_qr, l.id AS scan_log_id " +
+            "FROM updated u JOIN logged l ON l.area_id = u.id";
+
+    private static final String UPDATE_COUNT_SQL =
+            "UPDATE areas SET current_count = GREATEST(current_count + ?, 0), updated_at = ? WHERE id = ?";
+
+    private static final String SELECT_AREA_SQL =
+            "SELECT id, name, owner_email, event_id, capacity, threshold, current_count, generate_qr, " +
+            "NULL AS scan_log_id FROM areas WHERE id = ?";
+
+    private static final String SET_COUNT_SQL =
+            "UPDATE areas SET current_count = ?, updated_at = ? WHERE id = ?";
+
+    private static final String INSERT_LOG_SQL =
+            "INSERT INTO scan_logs (area_id, scan_type, timestamp) VALUES (?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private volatile Boolean postgres;
+
+    /**
+     * Apply a scan to the area counter and record it in scan_logs
+     * @param areaId Area ID
+     * @param scanType ENTRY (+1) or EXIT (-1, never below zero)
+     * @param timestamp Scan time
+     * @return Committed scan with the updated area row
+     * @throws RuntimeException if the area does not exist
+     */
+    public CommittedScan commitScan(Long areaId, ScanType scanType, LocalDateTime timestamp) {
+        int delta = scanType == ScanType.ENTRY ? 1 : -1;
+        Timestamp ts = Timestamp.valueOf(timestamp);
+
+        if (isPostgres()) {
+            List<CommittedScan> rows = jdbcTemplate.query(POSTGRES_COMMIT_SQL, committedScanMapper(timestamp, scanType),
+                    delta, ts, areaId, scanType.name(), ts);
+            if (rows.isEmpty()) {
+                throw new RuntimeException("Area not found with id: " + areaId);
+            }
+            return rows.get(0);
+        }
+
+        int updated = jdbcTemplate.update(UPDATE_COUNT_SQL, delta, ts, areaId);
+        if (updated == 0) {
+            throw new RuntimeException("Area not found with id: " + areaId);
+        }
+        // The row is locked by our UPDATE, so this read sees exactly our increment
+        CommittedScan row = jdbcTemplate.queryForObject(SELECT_AREA_SQL, committedScanMapper(timestamp, scanType), areaId);
+
+        Long scanLogId = insertScanLog(areaId, scanType, timestamp);
+        return new CommittedScan(scanLogId, row.areaId(), row.name(), row.ownerEmail(),
+                row.eventId(), row.capacity(), row.threshold(), row.newCount(), row.generateQr(), scanType, timestamp);
+    }
+
+    /**
+     * Insert a single scan log row
+     * @return Generated scan log ID
+     */
+    public Long insertScanLog(Long areaId, ScanType scanType, LocalDateTime timestamp) {
+        // The generated key comes back with the INSERT itself, no extra round trip
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_LOG_SQL, new String[] {"id"});
+            ps.setLong(1, areaId);
+            ps.setString(2, scanType.name());
+            ps.setTimestamp(3, Timestamp.valueOf(timestamp));
+            return ps;
+        }, keyHolder);
+        Number key = keyHolder.getKey();
+        return key != null ? key.longValue() : null;
+    }
+
+    /**
+     * Insert many scan log rows as one JDBC batch.
+     * IDs are left to the database; the driver can still send the batch in one
+     * round trip (reWriteBatchedInserts / rewriteBatchedStatements).
+     * @param rows Rows to insert
+     */
+    public void insertScanLogs(List<ScanLogRow> rows) {
+        jdbcTemplate.batchUpdate(INSERT_LOG_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.areaId());
+            ps.setString(2, row.scanType().name());
+            ps.setTimestamp(3, Timestamp.valueOf(row.timestamp()));
+        });
+    }
+
+    /**
+     * Write absolute counts for several areas in one JDBC batch (occupancy write-behind)
+     * @param counts Area ID -> count
+     */
+    public void updateCounts(Map<Long, Integer> counts) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(counts.size());
+        for (Map.Entry<Long, Integer> entry : counts.entrySet()) {
+            args.add(new Object[] {entry.getValue(), now, entry.getKey()});
+        }
+        jdbcTemplate.batchUpdate(SET_COUNT_SQL, args);
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            try {
+                String product = JdbcUtils.extractDatabaseMetaData(dataSource,
+                        metaData -> metaData.getDatabaseProductName());
+                result = product != null && product.toLowerCase().contains("postgres");
+            } catch (MetaDataAccessException | DataAccessException e) {
+                result = false;
+            }
+            postgres = result;
+        }
+        return result;
+    }
+
+    private static RowMapper<CommittedScan> committedScanMapper(LocalDateTime timestamp, ScanType scanType) {
+        return (rs, rowNum) -> new CommittedScan(
+                rs.getObject("scan_log_id") != null ? rs.getLong("scan_log_id") : null,
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("owner_email"),
+                rs.getObject("event_id") != null ? rs.getLong("event_id") : null,
+                rs.getInt("capacity"),
+                rs.getInt("threshold"),
+                rs.getInt("current_count"),
+                rs.getBoolean("generate_qr"),
+                scanType,
+                timestamp
+        );
+    }
+
+    /**
+     * A scan log row waiting to be inserted
+     */
+    public record ScanLogRow(Long areaId, ScanType scanType, LocalDateTime timestamp) {}
+
+    /**
+     * Result of a committed scan: the scan log row plus the area row after the update
+     */
+    public record CommittedScan(Long scanLogId, Long areaId, String name, String ownerEmail, Long eventId,
+                                Integer capacity, Integer threshold, Integer newCount, Boolean generateQr,
+                                ScanType scanType, LocalDateTime timestamp) {
+
+        /**
+         * Build a detached Area reflecting the updated row (no extra query)
+         * @param event Event reference (may be a lazy proxy or null)
+         */
+        public Area toArea(Event event) {
+            Area area = new Area();
+            area.setId(areaId);
+            area.setName(name);
+            area.setOwnerEmail(ownerEmail);
+            area.setEvent(event);
+            area.setCapacity(capacity);
+            area.setThreshold(threshold);
+            area.setCurrentCount(newCount);
+            area.setGenerateQr(generateQr);
+            return area;
+        }
+    }
+}
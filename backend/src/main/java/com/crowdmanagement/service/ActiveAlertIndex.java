@@ -0,0 +1,393 @@
+package com.crowdmanagement.service;
+
+import com.crowdmanagement.entity.Alert;
+import com.crowdmanagement.entity.AlertStatus;
+import com.crowdmanagement.entity.AlertType;
+import com.crowdmanagement.repository.AlertRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Active Alert Index
+ * ------------------
+ * In-memory index of unresolved alerts keyed by (areaId, AlertType), so
+ * duplicate suppression and auto-resolve checks on the scan path are map
+ * lookups instead of queries.
+ *
+ * Loaded from the database once the application is ready, then kept in sync
+ * by AlertService on create, read and resolve. Changes made inside a
+ * transaction are applied after it commits, so a rolled back alert never
+ * enters the index. Until the initial load completes, callers fall back to
+ * the repository.
+ *
+ * Keeps the number of UNREAD alerts per owner alongside, adjusted on every
+ * status change, so the unread badge is served from memory; each change is
+ * pushed to /topic/owner/{ownerEmail}/unread-count.
+ *
+ * Also remembers the last alert raised per (areaId, AlertType) since
+ * startup, so a re-breach within the re-fire interval counts as a repeat
+ * of it even after it was auto-resolved. A manual resolve forgets it.
+ *
+ * Repeats are counted here, not in the database: they are written to the
+ * alert's occurrence count when it is resolved and every
+ * app.alerts.repeat-flush-seconds, one UPDATE per alert that repeated.
+ */
+@Service
+public class ActiveAlertIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveAlertIndex.class);
+
+    @Autowired
+    private AlertRepository alertRepository;
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Value("${app.alerts.repeat-flush-seconds:30}")
+    private long repeatFlushSeconds;
+
+    private final Map<Long, ActiveAlert> byId = new ConcurrentHashMap<>();
+    private final Map<Key, Set<Long>> byKey = new ConcurrentHashMap<>();
+    private final Map<Key, Raised> lastRaised = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> unreadByOwner = new ConcurrentHashMap<>();
+    private final Map<Long, Repeats> repeats = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService repeatFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "alert-repeat-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean loaded;
+
+    @PostConstruct
+    public void start() {
+        long intervalMs = TimeUnit.SECONDS.toMillis(Math.max(1, repeatFlushSeconds));
+        repeatFlusher.scheduleWithFixedDelay(this::flushRepeatsQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write pending repeats before shutdown
+     */
+    @PreDestroy
+    public void stop() {
+        repeatFlusher.shutdownNow();
+        flushRepeatsQuietly();
+    }
+
+    /**
+     * Load every unresolved alert
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Alert alert : alertRepository.findAllUnresolved()) {
+            put(alert);
+        }
+        loaded = true;
+        log.info("Active alert index loaded {} unresolved alerts", byId.size());
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Whether an unresolved alert of this type exists for the area
+     */
+    public boolean hasActive(Long areaId, AlertType alertType) {
+        if (!loaded) {
+            return !alertRepository.findUnresolvedByAreaAndType(areaId, alertType).isEmpty();
+        }
+        Set<Long> ids = byKey.get(new Key(areaId, alertType));
+        return ids != null && !ids.isEmpty();
+    }
+
+    /**
+     * ID of an unresolved alert of this type for the area, or null if there is none
+     */
+    public Long activeId(Long areaId, AlertType alertType) {
+        if (!loaded) {
+            List<Alert> alerts = alertRepository.findUnresolvedByAreaAndType(areaId, alertType);
+            return alerts.isEmpty() ? null : alerts.get(0).getId();
+        }
+        Set<Long> ids = byKey.get(new Key(areaId, alertType));
+        return ids == null ? null : ids.stream().findFirst().orElse(null);
+    }
+
+    /**
+     * IDs of the unresolved alerts of this type for the area
+     */
+    public Set<Long> activeIds(Long areaId, AlertType alertType) {
+        Set<Long> ids = byKey.get(new Key(areaId, alertType));
+        return ids == null ? Set.of() : Set.copyOf(ids);
+    }
+
+    /**
+     * Count a repeat of an alert in memory (no I/O); see flushRepeats
+     * @param currentCount Area count at the repeat
+     */
+    public void repeated(Long alertId, int currentCount) {
+        Repeats repeat = new Repeats(1, currentCount, LocalDateTime.now());
+        repeats.merge(alertId, repeat, (pending, latest) ->
+                new Repeats(pending.count() + 1, latest.currentCount(), latest.lastOccurredAt()));
+    }
+
+    /**
+     * Write pending repeats to the alerts' occurrence counts
+     * Joins the caller's transaction if there is one.
+     * @param alertIds Alerts to write, or null for all of them
+     * @return Number of alerts updated
+     */
+    public int flushRepeats(Collection<Long> alertIds) {
+        int updated = 0;
+        for (Long alertId : alertIds != null ? alertIds : List.copyOf(repeats.keySet())) {
+            Repeats pending = repeats.remove(alertId);
+            if (pending != null) {
+                alertRepository.recordOccurrences(alertId, pending.count(), pending.currentCount(),
+                        pending.lastOccurredAt());
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    private void flushRepeatsQuietly() {
+        try {
+            flushRepeats(null);
+        } catch (RuntimeException e) {
+            log.warn("Failed to write alert repeats: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * ID of the last alert of this type raised for the area at or after
+     * sinceMillis (resolved or not), or null
+     */
+    public Long raisedSince(Long areaId, AlertType alertType, long sinceMillis) {
+        Raised raised = lastRaised.get(new Key(areaId, alertType));
+        return raised != null && raised.atMillis() >= sinceMillis ? raised.id() : null;
+    }
+
+    /**
+     * Number of UNREAD alerts of an owner
+     */
+    public long unreadCount(String ownerEmail) {
+        if (!loaded) {
+            return alertRepository.countByOwnerEmailAndStatus(ownerEmail, AlertStatus.UNREAD);
+        }
+        AtomicInteger count = unreadByOwner.get(ownerEmail);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Unresolved alert by ID, or null if it is resolved or unknown
+     */
+    public ActiveAlert get(Long alertId) {
+        return byId.get(alertId);
+    }
+
+    /**
+     * Track a newly created or reopened alert (after commit)
+     */
+    public void created(Alert alert) {
+        long raisedAt = System.currentTimeMillis();
+        afterCommit(() -> {
+            if (put(alert)) {
+                pushUnread(alert.getOwnerEmail());
+            }
+            lastRaised.put(new Key(alert.getAreaId(), alert.getAlertType()), new Raised(alert.getId(), raisedAt));
+        });
+    }
+
+    /**
+     * Track a status change (after commit); RESOLVED removes the alert
+     */
+    public void statusChanged(Long alertId, AlertStatus status) {
+        afterCommit(() -> {
+            if (status == AlertStatus.RESOLVED) {
+                ActiveAlert removed = byId.remove(alertId);
+                if (removed != null) {
+                    Set<Long> ids = byKey.get(removed.key());
+                    if (ids != null) {
+                        ids.remove(alertId);
+                    }
+                    lastRaised.remove(removed.key());
+                    if (countUnread(removed, null)) {
+                        pushUnread(removed.ownerEmail());
+                    }
+                }
+            } else {
+                ActiveAlert changed = setStatus(alertId, status);
+                if (changed != null) {
+                    pushUnread(changed.ownerEmail());
+                }
+            }
+        });
+    }
+
+    /**
+     * Track a bulk mark-all-read of an owner's alerts (after commit)
+     */
+    public void ownerMarkedRead(String ownerEmail) {
+        afterCommit(() -> {
+            byId.values().stream()
+                    .filter(active -> active.status() == AlertStatus.UNREAD && active.ownerEmail().equals(ownerEmail))
+                    .map(ActiveAlert::id)
+                    .toList()
+                    .forEach(id -> setStatus(id, AlertStatus.READ));
+            pushUnread(ownerEmail);
+        });
+    }
+
+    /**
+     * Track a bulk resolve of one area and alert type (after commit)
+     */
+    public void resolved(Long areaId, AlertType alertType) {
+        afterCommit(() -> {
+            Set<Long> ids = byKey.remove(new Key(areaId, alertType));
+            if (ids != null) {
+                Set<String> owners = new HashSet<>();
+                for (Long id : ids) {
+                    ActiveAlert removed = byId.remove(id);
+                    if (countUnread(removed, null)) {
+                        owners.add(removed.ownerEmail());
+                    }
+                }
+                owners.forEach(this::pushUnread);
+            }
+        });
+    }
+
+    /**
+     * Track a bulk resolve of every alert of some areas (after commit)
+     */
+    public void resolvedAreas(Collection<Long> areaIds) {
+        Set<Long> areas = Set.copyOf(areaIds);
+        afterCommit(() -> {
+            byKey.keySet().removeIf(key -> areas.contains(key.areaId()));
+            Set<String> owners = new HashSet<>();
+            for (ActiveAlert active : byId.values()) {
+                if (areas.contains(active.areaId()) && byId.remove(active.id(), active) && countUnread(active, null)) {
+                    owners.add(active.ownerEmail());
+                }
+            }
+            owners.forEach(this::pushUnread);
+            lastRaised.keySet().removeIf(key -> areas.contains(key.areaId()));
+        });
+    }
+
+    /**
+     * Forget every alert of a deleted area
+     */
+    public void removeArea(Long areaId) {
+        resolvedAreas(List.of(areaId));
+    }
+
+    /**
+     * @return true if the owner's unread count changed
+     */
+    private boolean put(Alert alert) {
+        if (alert.getStatus() == AlertStatus.RESOLVED) {
+            return false;
+        }
+        ActiveAlert active = new ActiveAlert(alert.getId(), alert.getAreaId(), alert.getAlertType(),
+                alert.getOwnerEmail(), alert.getStatus());
+        ActiveAlert previous = byId.put(active.id(), active);
+        byKey.computeIfAbsent(active.key(), key -> ConcurrentHashMap.newKeySet()).add(active.id());
+        return countUnread(previous, active);
+    }
+
+    /**
+     * Change the status of a tracked alert
+     * @return the updated alert if the owner's unread count changed, otherwise null
+     */
+    private ActiveAlert setStatus(Long alertId, AlertStatus status) {
+        ActiveAlert[] before = new ActiveAlert[1];
+        ActiveAlert after = byId.computeIfPresent(alertId, (id, active) -> {
+            before[0] = active;
+            return active.withStatus(status);
+        });
+        return countUnread(before[0], after) ? after : null;
+    }
+
+    /**
+     * Apply one alert's before/after state (null = untracked) to its owner's unread count
+     * @return true if the count changed
+     */
+    private boolean countUnread(ActiveAlert before, ActiveAlert after) {
+        int delta = (after != null && after.status() == AlertStatus.UNREAD ? 1 : 0)
+                - (before != null && before.status() == AlertStatus.UNREAD ? 1 : 0);
+        if (delta == 0) {
+            return false;
+        }
+        String ownerEmail = after != null ? after.ownerEmail() : before.ownerEmail();
+        unreadByOwner.computeIfAbsent(ownerEmail, owner -> new AtomicInteger()).addAndGet(delta);
+        return true;
+    }
+
+    private void pushUnread(String ownerEmail) {
+        webSocketService.broadcastUnreadCount(ownerEmail, unreadCount(ownerEmail));
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    /**
+     * Repeats of one alert not yet written, with the latest count and time
+     */
+    private record Repeats(int count, int currentCount, LocalDateTime lastOccurredAt) {}
+
+    /**
+     * Last alert raised for a key, with its time (epoch millis)
+     */
+    private record Raised(Long id, long atMillis) {}
+
+    /**
+     * Lookup key: one area, one alert type
+     */
+    public record Key(Long areaId, AlertType alertType) {}
+
+    /**
+     * Minimal view of an unresolved alert
+     */
+    public record ActiveAlert(Long id, Long areaId, AlertType alertType, String ownerEmail, AlertStatus status) {
+        public Key key() {
+            return new Key(areaId, alertType);
+        }
+
+        ActiveAlert withStatus(AlertStatus newStatus) {
+            return new ActiveAlert(id, areaId, alertType, ownerEmail, newStatus);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.crowdmanagement.service;
+
+import com.crowdmanagement.entity.Area;
+import com.crowdmanagement.entity.ScanType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alert Pipeline
+ * --------------
+ * Moves alert generation off the scan transaction.
+ *
+ * The scan path only screens each count change (level transition, rapid
+ * inflow, a configured alert rule or the capacity forecast firing, no
+ * I/O); the few changes that need alert work are published once
+ * the scan commits, onto the owning area's shard of a small worker pool
+ * (ShardedExecutor), so alerts for an area are stored in scan order while
+ * the gate's response does not wait for alert inserts or broadcasts.
+ *
+ * Backpressure: publishing never blocks and never evaluates on the
+ * caller's thread (the scan shard). Each area has a mailbox holding at
+ * most one pending change, with at most one drain task queued for it.
+ * A change published while the area's previous one is still waiting is
+ * coalesced into it (earliest previous count, latest area state, rule
+ * hits and inflow/forecast flags combined), so a backed-up area costs
+ * one queue slot and is evaluated once on its net change, still in order.
+ * If a shard queue is full, the area stays in its mailbox and is
+ * rescheduled by the next drain that completes.
+ *
+ * Every event's publish-to-stored lag is recorded and events over
+ * lag-target-ms are counted.
+ *
+ * Metrics: alerts.pipeline.lag (histogram, SLO = lag target),
+ * alerts.pipeline.lag.breaches, alerts.pipeline.published,
+ * alerts.pipeline.coalesced, alert.shard.queue.depth / latency / rejected
+ */
+@Service
+public class AlertPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertPipeline.class);
+
+    @Autowired
+    private AlertService alertService;
+
+    @Autowired
+    private AlertRuleEngine alertRuleEngine;
+
+    @Autowired
+    private InflowForecaster inflowForecaster;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.alerts.pipeline.async:true}")
+    private boolean async;
+
+    @Value("${app.alerts.pipeline.workers:2}")
+    private int workers;
+
+    @Value("${app.alerts.pipeline.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.alerts.pipeline.lag-target-ms:1000}")
+    private long lagTargetMs;
+
+    private ShardedExecutor executor;
+    private Timer lag;
+    private Counter breaches;
+    private Counter published;
+    private Counter coalesced;
+
+    // Pending change per area: present while a drain for the area is queued (or could not be queued)
+    private final Map<Long, OccupancyChange> mailboxes = new ConcurrentHashMap<>();
+    // Areas with a pending change but no queued drain (shard queue was full)
+    private final Set<Long> unscheduled = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void start() {
+        lag = Timer.builder("alerts.pipeline.lag")
+                .description("Time from a threshold crossing to the alert being stored")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .serviceLevelObjectives(Duration.ofMillis(lagTargetMs))
+                .register(meterRegistry);
+        breaches = meterRegistry.counter("alerts.pipeline.lag.breaches");
+        published = meterRegistry.counter("alerts.pipeline.published");
+        coalesced = meterRegistry.counter("alerts.pipeline.coalesced");
+        if (async && workers > 0) {
+            executor = new ShardedExecutor("alert", workers, queueCapacity, meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown(30, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Publish an occupancy change
+     * Every change feeds the inflow forecaster; changes that stay within a
+     * level (and fire no inflow check, rule or forecast) end here.
+     * @param area The area, carrying its new count
+     * @param previousCount Count before the scan (or batch)
+     * @param scanType Entry or Exit
+     */
+    public void publish(Area area, int previousCount, ScanType scanType) {
+        boolean forecast = inflowForecaster.record(area, previousCount);
+        boolean transition = alertService.isTransition(area, previousCount);
+        List<AlertRuleEngine.RuleHit> ruleHits = alertRuleEngine.evaluate(area, previousCount, scanType);
+        // An area's own INFLOW_RATE rule replaces the default rapid inflow check
+        boolean rapidInflow = !transition && !alertRuleEngine.overridesRapidInflow(area)
+                && alertService.detectRapidInflow(area, scanType);
+        if (!transition && !rapidInflow && !forecast && ruleHits.isEmpty()) {
+            return;
+        }
+        OccupancyChange change = new OccupancyChange(area, previousCount, transition, rapidInflow, forecast,
+                ruleHits, System.nanoTime());
+        afterCommit(() -> enqueue(change));
+    }
+
+    private void enqueue(OccupancyChange change) {
+        published.increment();
+        if (executor == null) {
+            process(change);
+            return;
+        }
+        Long areaId = change.area().getId();
+        boolean[] created = new boolean[1];
+        mailboxes.compute(areaId, (id, pending) -> {
+            if (pending == null) {
+                created[0] = true;
+                return change;
+            }
+            coalesced.increment();
+            return pending.coalesce(change, alertService);
+        });
+        if (created[0]) {
+            schedule(areaId);
+        }
+    }
+
+    /**
+     * Queue a drain of the area's mailbox without waiting for queue space
+     */
+    private void schedule(Long areaId) {
+        try {
+            executor.submit(areaId, () -> {
+                drain(areaId);
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            unscheduled.add(areaId);
+            log.warn("Alert queue full for area {}, coalescing its changes until the queue drains", areaId);
+        }
+    }
+
+    private void drain(Long areaId) {
+        OccupancyChange change = mailboxes.remove(areaId);
+        if (change != null) {
+            process(change);
+        }
+        // Now there is room on at least this shard: retry areas that found their queue full
+        for (Long waiting : List.copyOf(unscheduled)) {
+            if (unscheduled.remove(waiting)) {
+                schedule(waiting);
+            }
+        }
+    }
+
+    private void process(OccupancyChange change) {
+        try {
+            if (change.transition()) {
+                alertService.evaluateTransition(change.area(), change.previousCount());
+            }
+            if (change.rapidInflow()) {
+                alertService.raiseRapidInflow(change.area());
+            }
+            if (change.forecast()) {
+                alertService.raiseCapacityForecast(change.area(), inflowForecaster.forecast(change.area().getId(),
+                        change.area().getCurrentCount(), change.area().getThreshold(), change.area().getCapacity()));
+            }
+            for (AlertRuleEngine.RuleHit hit : change.ruleHits()) {
+                alertService.raiseRuleAlert(change.area(), hit);
+            }
+        } catch (RuntimeException e) {
+            log.error("Alert evaluation failed for area {}: {}", change.area().getId(), e.getMessage());
+        } finally {
+            long nanos = System.nanoTime() - change.publishedAt();
+            lag.record(nanos, TimeUnit.NANOSECONDS);
+            if (nanos > TimeUnit.MILLISECONDS.toNanos(lagTargetMs)) {
+                breaches.increment();
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * A count change that needs alert work
+     */
+    private record OccupancyChange(Area area, int previousCount, boolean transition, boolean rapidInflow,
+                                   boolean forecast, List<AlertRuleEngine.RuleHit> ruleHits, long publishedAt) {
+
+        /**
+         * One change covering this one followed by a later one of the same area
+         */
+        OccupancyChange coalesce(OccupancyChange later, AlertService alertService) {
+            List<AlertRuleEngine.RuleHit> hits = new ArrayList<>(ruleHits);
+            hits.addAll(later.ruleHits());
+            return new OccupancyChange(later.area(), previousCount,
+                    alertService.isTransition(later.area(), previousCount),
+                    rapidInflow || later.rapidInflow(), forecast || later.forecast(), hits, publishedAt);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.crowdmanagement.service;
+
+import com.crowdmanagement.entity.AlertRule;
+import com.crowdmanagement.entity.AlertRuleType;
+import com.crowdmanagement.entity.AlertType;
+import com.crowdmanagement.entity.Area;
+import com.crowdmanagement.entity.ScanType;
+import com.crowdmanagement.repository.AlertRuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Alert Rule Engine
+ * -----------------
+ * Evaluates the configurable alert rules (AlertRule) on every count change.
+ *
+ * Enabled rules are loaded once into an immutable rule set. The first scan
+ * of an area compiles that area's rules (its own plus its event's) into an
+ * array of incremental evaluators, so a scan costs one map lookup plus
+ * O(number of rules) arithmetic, with no queries. Evaluators are
+ * edge-triggered: a rule fires once when its condition becomes true and
+ * re-arms when it becomes false again.
+ *
+ * Hot reload: rule changes (or POST /api/alert-rules/reload) swap in a new
+ * rule set after commit; areas recompile on their next scan and their rule
+ * state (windows, timers) starts afresh.
+ */
+@Service
+public class AlertRuleEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertRuleEngine.class);
+
+    @Autowired
+    private AlertRuleRepository alertRuleRepository;
+
+    private volatile RuleSet ruleSet = new RuleSet(0, Map.of(), Map.of());
+
+    private final Map<Long, CompiledRules> compiled = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    /**
+     * Reload once a rule change has committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRulesChanged(AlertRuleService.RulesChanged event) {
+        reload();
+    }
+
+    /**
+     * Load all enabled rules and invalidate every compiled area
+     */
+    public synchronized void reload() {
+        Map<Long, List<AlertRule>> byArea = new HashMap<>();
+        Map<Long, List<AlertRule>> byEvent = new HashMap<>();
+        List<AlertRule> rules = alertRuleRepository.findByEnabledTrue();
+        for (AlertRule rule : rules) {
+            if (rule.getAreaId() != null) {
+                byArea.computeIfAbsent(rule.getAreaId(), id -> new ArrayList<>()).add(rule);
+            } else if (rule.getEventId() != null) {
+                byEvent.computeIfAbsent(rule.getEventId(), id -> new ArrayList<>()).add(rule);
+            }
+        }
+        ruleSet = new RuleSet(ruleSet.generation() + 1, byArea, byEvent);
+        compiled.clear();
+        log.info("Alert rules loaded: {} enabled rules", rules.size());
+    }
+
+    /**
+     * Run an area's rules against a count change
+     * @param area The area, carrying its new count
+     * @param previousCount Count before the scan (or batch)
+     * @param scanType Entry or Exit
+     * @return Rules that fired (empty, without allocation, in the common case)
+     */
+    public List<RuleHit> evaluate(Area area, int previousCount, ScanType scanType) {
+        RuleEvaluator[] evaluators = compiledFor(area).evaluators();
+        if (evaluators.length == 0) {
+            return List.of();
+        }
+        long now = System.currentTimeMillis();
+        List<RuleHit> hits = null;
+        for (RuleEvaluator evaluator : evaluators) {
+            if (evaluator.onScan(previousCount, area.getCurrentCount(), area.getCapacity(), scanType, now)) {
+                if (hits == null) {
+                    hits = new ArrayList<>(2);
+                }
+                hits.add(new RuleHit(evaluator.alertType(), evaluator.message(area.getName())));
+            }
+        }
+        return hits != null ? hits : List.of();
+    }
+
+    /**
+     * Whether the area has its own inflow rule, replacing the default rapid inflow check
+     */
+    public boolean overridesRapidInflow(Area area) {
+        return compiledFor(area).hasInflowRule();
+    }
+
+    private CompiledRules compiledFor(Area area) {
+        RuleSet current = ruleSet;
+        CompiledRules rules = compiled.get(area.getId());
+        if (rules != null && rules.generation() == current.generation()) {
+            return rules;
+        }
+        rules = compile(area, current);
+        compiled.put(area.getId(), rules);
+        return rules;
+    }
+
+    private static CompiledRules compile(Area area, RuleSet ruleSet) {
+        List<AlertRule> definitions = new ArrayList<>(ruleSet.byArea().getOrDefault(area.getId(), List.of()));
+        if (area.getEvent() != null) {
+            definitions.addAll(ruleSet.byEvent().getOrDefault(area.getEvent().getId(), List.of()));
+        }
+        RuleEvaluator[] evaluators = new RuleEvaluator[definitions.size()];
+        boolean hasInflowRule = false;
+        for (int i = 0; i < evaluators.length; i++) {
+            AlertRule rule = definitions.get(i);
+            evaluators[i] = evaluatorFor(rule);
+            hasInflowRule |= rule.getRuleType() == AlertRuleType.INFLOW_RATE;
+        }
+        return new CompiledRules(ruleSet.generation(), evaluators, hasInflowRule);
+    }
+
+    private static RuleEvaluator evaluatorFor(AlertRule rule) {
+        return switch (rule.getRuleType()) {
+            case INFLOW_RATE -> new RateEvaluator(ScanType.ENTRY, rule.getCount(), rule.getWindowSeconds());
+            case OUTFLOW_SURGE -> new RateEvaluator(ScanType.EXIT, rule.getCount(), rule.getWindowSeconds());
+            case SUSTAINED_OCCUPANCY -> new SustainedEvaluator(rule.getPercentage(), rule.getDurationMinutes());
+            case OCCUPANCY_PERCENT -> new PercentEvaluator(rule.getPercentage());
+        };
+    }
+
+    /**
+     * A rule that fired: alert type and message for the alert to raise
+     */
+    public record RuleHit(AlertType alertType, String message) {}
+
+    private record RuleSet(long generation, Map<Long, List<AlertRule>> byArea, Map<Long, List<AlertRule>> byEvent) {}
+
+    private record CompiledRules(long generation, RuleEvaluator[] evaluators, boolean hasInflowRule) {}
+
+    /**
+     * Incremental evaluator for one rule on one area
+     */
+    interface RuleEvaluator {
+        AlertType alertType();
+
+        /**
+         * @return true when the rule's condition has just become true
+         */
+        boolean onScan(int previousCount, int currentCount, int capacity, ScanType scanType, long nowMillis);
+
+        String message(String areaName);
+    }
+
+    /**
+     * count scans of one direction within windowSeconds (ring of timestamps)
+     */
+    static class RateEvaluator implements RuleEvaluator {
+        private final ScanType direction;
+        private final int count;
+        private final int windowSeconds;
+        private final long windowMillis;
+        private final RapidInflowDetector.Window window;
+        private final AtomicBoolean fired = new AtomicBoolean();
+
+        RateEvaluator(ScanType direction, int count, int windowSeconds) {
+            this.direction = direction;
+            this.count = count;
+            this.windowSeconds = windowSeconds;
+            this.windowMillis = TimeUnit.SECONDS.toMillis(windowSeconds);
+            this.window = new RapidInflowDetector.Window(count);
+        }
+
+        @Override
+        public AlertType alertType() {
+            return direction == ScanType.ENTRY ? AlertType.RAPID_INFLOW : AlertType.OUTFLOW_SURGE;
+        }
+
+        @Override
+        public boolean onScan(int previousCount, int currentCount, int capacity, ScanType scanType, long nowMillis) {
+            if (scanType != direction) {
+                return false;
+            }
+            if (window.record(nowMillis, windowMillis)) {
+                return fired.compareAndSet(false, true);
+            }
+            fired.set(false);
+            return false;
+        }
+
+        @Override
+        public String message(String areaName) {
+            return direction == ScanType.ENTRY
+                    ? String.format("Rapid inflow detected at %s - %d entries in %d seconds", areaName, count, windowSeconds)
+                    : String.format("Outflow surge detected at %s - %d exits in %d seconds", areaName, count, windowSeconds);
+        }
+    }
+
+    /**
+     * Occupancy at or above percentage for durationMinutes
+     * (checked on scans, so it fires on the first scan after the duration)
+     */
+    static class SustainedEvaluator implements RuleEvaluator {
+        private final double percentage;
+        private final int durationMinutes;
+        private final long durationMillis;
+        private final AtomicLong aboveSince = new AtomicLong();
+        private final AtomicBoolean fired = new AtomicBoolean();
+
+        SustainedEvaluator(double percentage, int durationMinutes) {
+            this.percentage = percentage;
+            this.durationMinutes = durationMinutes;
+            this.durationMillis = TimeUnit.MINUTES.toMillis(durationMinutes);
+        }
+
+        @Override
+        public AlertType alertType() {
+            return AlertType.SUSTAINED_OCCUPANCY;
+        }
+
+        @Override
+        public boolean onScan(int previousCount, int currentCount, int capacity, ScanType scanType, long nowMillis) {
+            if (Area.occupancyFor(currentCount, capacity) < percentage) {
+                aboveSince.set(0);
+                fired.set(false);
+                return false;
+            }
+            aboveSince.compareAndSet(0, nowMillis);
+            return nowMillis - aboveSince.get() >= durationMillis && fired.compareAndSet(false, true);
+        }
+
+        @Override
+        public String message(String areaName) {
+            return String.format(Locale.ROOT, "%s has stayed at or above %.0f%% capacity for %d minutes",
+                    areaName, percentage, durationMinutes);
+        }
+    }
+
+    /**
+     * Occupancy crossing percentage upwards (stateless)
+     */
+    static class PercentEvaluator implements RuleEvaluator {
+        private final double percentage;
+
+        PercentEvaluator(double percentage) {
+            this.percentage = percentage;
+        }
+
+        @Override
+        public AlertType alertType() {
+            return AlertType.CUSTOM_THRESHOLD;
+        }
+
+        @Override
+        public boolean onScan(int previousCount, int currentCount, int capacity, ScanType scanType, long nowMillis) {
+            return Area.occupancyFor(previousCount, capacity) < percentage
+                    && Area.occupancyFor(currentCount, capacity) >= percentage;
+        }
+
+        @Override
+        public String message(String areaName) {
+            return String.format(Locale.ROOT, "%s has reached %.0f%% capacity", areaName, percentage);
+        }
+    }
+}
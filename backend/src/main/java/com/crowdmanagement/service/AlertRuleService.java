@@ -0,0 +1,153 @@
+package com.crowdmanagement.service;
+
+import com.crowdmanagement.dto.AlertRuleRequest;
+import com.crowdmanagement.dto.AlertRuleResponse;
+import com.crowdmanagement.entity.AlertRule;
+import com.crowdmanagement.repository.AlertRuleRepository;
+import com.crowdmanagement.repository.AreaRepository;
+import com.crowdmanagement.repository.EventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Alert Rule Service
+ * ------------------
+ * Business logic for configurable alert rules.
+ * Multi-tenant: All operations are scoped to the owner's email.
+ * Every change publishes RulesChanged, which reloads AlertRuleEngine after commit.
+ */
+@Service
+public class AlertRuleService {
+
+    // Upper bound on count: the engine keeps one timestamp per counted scan
+    private static final int MAX_COUNT = 10000;
+
+    @Autowired
+    private AlertRuleRepository alertRuleRepository;
+
+    @Autowired
+    private AreaRepository areaRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private AlertRuleEngine alertRuleEngine;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Get all rules of an owner
+     */
+    public List<AlertRuleResponse> getAllRules(String ownerEmail) {
+        return alertRuleRepository.findByOwnerEmailOrderByIdAsc(ownerEmail)
+                .stream()
+                .map(AlertRuleResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Create a rule on one of the owner's areas or events
+     * @throws RuntimeException if the rule is invalid or the target is not owned
+     */
+    @Transactional
+    public AlertRuleResponse createRule(AlertRuleRequest request, String ownerEmail) {
+        AlertRule rule = new AlertRule();
+        rule.setOwnerEmail(ownerEmail);
+        apply(rule, request, ownerEmail);
+        AlertRule saved = alertRuleRepository.save(rule);
+        eventPublisher.publishEvent(new RulesChanged(saved.getId()));
+        return AlertRuleResponse.fromEntity(saved);
+    }
+
+    /**
+     * Update a rule (must belong to owner)
+     */
+    @Transactional
+    public AlertRuleResponse updateRule(Long id, AlertRuleRequest request, String ownerEmail) {
+        AlertRule rule = alertRuleRepository.findByIdAndOwnerEmail(id, ownerEmail)
+                .orElseThrow(() -> new RuntimeException("Alert rule not found with id: " + id));
+        apply(rule, request, ownerEmail);
+        AlertRule saved = alertRuleRepository.save(rule);
+        eventPublisher.publishEvent(new RulesChanged(saved.getId()));
+        return AlertRuleResponse.fromEntity(saved);
+    }
+
+    /**
+     * Delete a rule (must belong to owner)
+     */
+    @Transactional
+    public void deleteRule(Long id, String ownerEmail) {
+        AlertRule rule = alertRuleRepository.findByIdAndOwnerEmail(id, ownerEmail)
+                .orElseThrow(() -> new RuntimeException("Alert rule not found with id: " + id));
+        alertRuleRepository.delete(rule);
+        eventPublisher.publishEvent(new RulesChanged(id));
+    }
+
+    /**
+     * Reload every rule now (e.g. after rules were edited in the database)
+     */
+    public void reloadRules() {
+        alertRuleEngine.reload();
+    }
+
+    private void apply(AlertRule rule, AlertRuleRequest request, String ownerEmail) {
+        if ((request.getAreaId() == null) == (request.getEventId() == null)) {
+            throw new RuntimeException("Set exactly one of areaId or eventId");
+        }
+        if (request.getAreaId() != null) {
+            areaRepository.findByIdAndOwnerEmail(request.getAreaId(), ownerEmail)
+                    .orElseThrow(() -> new RuntimeException("Area not found with id: " + request.getAreaId()));
+        } else {
+            eventRepository.findByIdAndOwnerEmail(request.getEventId(), ownerEmail)
+                    .orElseThrow(() -> new RuntimeException("Event not found with id: " + request.getEventId()));
+        }
+        validate(request);
+
+        rule.setAreaId(request.getAreaId());
+        rule.setEventId(request.getEventId());
+        rule.setRuleType(request.getRuleType());
+        rule.setCount(request.getCount());
+        rule.setWindowSeconds(request.getWindowSeconds());
+        rule.setPercentage(request.getPercentage());
+        rule.setDurationMinutes(request.getDurationMinutes());
+        rule.setEnabled(request.getEnabled() == null || request.getEnabled());
+    }
+
+    private static void validate(AlertRuleRequest request) {
+        switch (request.getRuleType()) {
+            case INFLOW_RATE, OUTFLOW_SURGE -> {
+                if (request.getCount() == null || request.getCount() < 1 || request.getCount() > MAX_COUNT) {
+                    throw new RuntimeException("count must be between 1 and " + MAX_COUNT);
+                }
+                if (request.getWindowSeconds() == null || request.getWindowSeconds() < 1) {
+                    throw new RuntimeException("windowSeconds must be at least 1");
+                }
+            }
+            case SUSTAINED_OCCUPANCY -> {
+                validatePercentage(request.getPercentage());
+                if (request.getDurationMinutes() == null || request.getDurationMinutes() < 1) {
+                    throw new RuntimeException("durationMinutes must be at least 1");
+                }
+            }
+            case OCCUPANCY_PERCENT -> validatePercentage(request.getPercentage());
+        }
+    }
+
+    private static void validatePercentage(Double percentage) {
+        if (percentage == null || percentage <= 0) {
+            throw new RuntimeException("percentage must be greater than 0");
+        }
+    }
+
+    /**
+     * Published on every rule change; AlertRuleEngine reloads after commit
+     */
+    public record RulesChanged(Long ruleId) {}
+}
@@ -1,20 +1,25 @@
 package com.crowdmanagement.service;
 
+import com.crowdmanagement.dto.AlertPageResponse;
 import com.crowdmanagement.dto.AlertResponse;
 import com.crowdmanagement.entity.*;
+import com.crowdmanagement.repository.AlertQueryRepository;
 import com.crowdmanagement.repository.AlertRepository;
+import com.crowdmanagement.repository.EventRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.HashMap;
+import java.util.Base64;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 /**
@@ -30,46 +35,110 @@ public class AlertService {
     @Autowired
     private AlertRepository alertRepository;
 
+    @Autowired
+    private AlertQueryRepository alertQueryRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
     @Autowired
     private WebSocketService webSocketService;
 
-    // Track recent entries for rapid inflow detection (areaId -> timestamps)
-    private final Map<Long, List<LocalDateTime>> recentEntries = new HashMap<>();
-    
-    // Rapid inflow threshold: X entries within Y seconds
-    private static final int RAPID_INFLOW_COUNT = 10;
-    private static final int RAPID_INFLOW_SECONDS = 30;
+    // Rapid inflow: X entries within Y seconds (app.alerts.rapid-inflow.*)
+    @Autowired
+    private RapidInflowDetector rapidInflowDetector;
+
+    // Unresolved alerts by (area, type): duplicate checks without a query
+    @Autowired
+    private ActiveAlertIndex activeAlertIndex;
+
+    // Hysteresis: alerts resolve only once the count is this % of capacity below the boundary
+    @Value("${app.alerts.hysteresis.resolve-band-percent:5}")
+    private double resolveBandPercent;
+
+    // A re-breach within this interval of the last alert counts as a repeat of it instead of raising a new one
+    @Value("${app.alerts.refire-interval-seconds:60}")
+    private long refireIntervalSeconds;
+
+    // Upper bound on the page size of the alert query
+    @Value("${app.alerts.page.max-size:200}")
+    private int maxPageSize;
+
+    // Occupancy levels, ordered like Area.statusFor: GREEN < YELLOW < RED
+    private static final int GREEN = 0;
+    private static final int YELLOW = 1;
+    private static final int RED = 2;
+
+    /**
+     * Whether a count change crosses the threshold or the capacity boundary
+     * upwards, or one of their resolve bounds (boundary minus the hysteresis
+     * band) downwards (a few comparisons, no I/O: safe to call on the scan path)
+     */
+    public boolean isTransition(Area area, int previousCount) {
+        int currentCount = area.getCurrentCount();
+        if (currentCount > previousCount) {
+            return levelOf(previousCount, area.getThreshold(), area.getCapacity())
+                    != levelOf(currentCount, area.getThreshold(), area.getCapacity());
+        }
+        if (currentCount < previousCount) {
+            return resolveLevelOf(previousCount, area) != resolveLevelOf(currentCount, area);
+        }
+        return false;
+    }
+
+    /**
+     * Record an entry in the rapid inflow ring while the area is GREEN
+     * (O(1), no I/O: safe to call on the scan path)
+     * @return true if a RAPID_INFLOW alert should be raised
+     */
+    public boolean detectRapidInflow(Area area, ScanType scanType) {
+        return scanType == ScanType.ENTRY
+                && levelOf(area.getCurrentCount(), area.getThreshold(), area.getCapacity()) == GREEN
+                && rapidInflowDetector.recordEntry(area.getId());
+    }
 
     /**
-     * Check and generate alerts based on area status after a scan
-     * @param area The area that was scanned
-     * @param scanType Entry or Exit
+     * Generate or resolve alerts for a count change
+     * Rising counts raise at the threshold / capacity; falling counts resolve
+     * only below the resolve bounds (hysteresis), so a count hovering at a
+     * boundary does not flip the alert on every scan; see isTransition.
+     * @param area The area, carrying its new count
+     * @param previousCount Count before the scan (or batch)
      * @return Generated alert if any, null otherwise
      */
     @Transactional
-    public Alert checkAndGenerateAlert(Area area, ScanType scanType) {
-        log.info("Checking alerts for area: {} (id={}), scanType: {}, currentCount: {}, threshold: {}, capacity: {}", 
-                area.getName(), area.getId(), scanType, area.getCurrentCount(), area.getThreshold(), area.getCapacity());
-        
-        if (scanType == ScanType.EXIT) {
-            // Check if we should auto-resolve alerts when count drops
-            autoResolveAlerts(area);
-            return null;
+    public Alert evaluateTransition(Area area, int previousCount) {
+        if (area.getCurrentCount() > previousCount) {
+            return raiseForLevel(area,
+                    levelOf(previousCount, area.getThreshold(), area.getCapacity()),
+                    levelOf(area.getCurrentCount(), area.getThreshold(), area.getCapacity()));
         }
 
-        // Check for overcrowding (at or above capacity)
-        if (area.getCurrentCount() >= area.getCapacity()) {
-            log.info("Overcrowding detected! Count {} >= Capacity {}", area.getCurrentCount(), area.getCapacity());
-            return generateAlertIfNotExists(area, AlertType.OVERCROWDING,
-                    String.format("%s is overcrowded at %d%% capacity (%d/%d)",
-                            area.getName(),
-                            (int) area.getOccupancyPercentage(),
-                            area.getCurrentCount(),
-                            area.getCapacity()));
+        int before = resolveLevelOf(previousCount, area);
+        int after = resolveLevelOf(area.getCurrentCount(), area);
+        if (after < before) {
+            // Count dropped below the capacity and/or threshold resolve bound: resolve what no longer applies
+            if (before == RED) {
+                resolveActive(area, AlertType.OVERCROWDING);
+            }
+            if (after == GREEN) {
+                resolveActive(area, AlertType.THRESHOLD_BREACH);
+            }
         }
+        return null;
+    }
 
-        // Check for threshold breach (above threshold but below capacity)
-        if (area.getCurrentCount() >= area.getThreshold()) {
+    private Alert raiseForLevel(Area area, int before, int after) {
+        if (after > before) {
+            if (after == RED) {
+                log.info("Overcrowding detected! Count {} >= Capacity {}", area.getCurrentCount(), area.getCapacity());
+                return generateAlertIfNotExists(area, AlertType.OVERCROWDING,
+                        String.format("%s is overcrowded at %d%% capacity (%d/%d)",
+                                area.getName(),
+                                (int) area.getOccupancyPercentage(),
+                                area.getCurrentCount(),
+                                area.getCapacity()));
+            }
             log.info("Threshold breach detected! Count {} >= Threshold {}", area.getCurrentCount(), area.getThreshold());
             return generateAlertIfNotExists(area, AlertType.THRESHOLD_BREACH,
                     String.format("%s has breached threshold at %d%% capacity (%d/%d)",
@@ -78,163 +147,177 @@ public class AlertService {
                             area.getCurrentCount(),
                             area.getCapacity()));
         }
+        return null;
+    }
 
-        // Check for rapid inflow
-        if (detectRapidInflow(area.getId())) {
-            log.info("Rapid inflow detected for area {}", area.getName());
-            return generateAlertIfNotExists(area, AlertType.RAPID_INFLOW,
-                    String.format("Rapid inflow detected at %s - %d entries in %d seconds",
-                            area.getName(),
-                            RAPID_INFLOW_COUNT,
-                            RAPID_INFLOW_SECONDS));
+    /**
+     * Raise a rapid inflow alert (after detectRapidInflow returned true)
+     */
+    @Transactional
+    public Alert raiseRapidInflow(Area area) {
+        log.info("Rapid inflow detected for area {}", area.getName());
+        return generateAlertIfNotExists(area, AlertType.RAPID_INFLOW,
+                String.format("Rapid inflow detected at %s - %d entries in %d seconds",
+                        area.getName(),
+                        rapidInflowDetector.getCount(),
+                        rapidInflowDetector.getWindowSeconds()));
+    }
+
+    /**
+     * Raise a capacity forecast alert (after InflowForecaster.record returned true)
+     */
+    @Transactional
+    public Alert raiseCapacityForecast(Area area, InflowForecaster.Forecast forecast) {
+        log.info("Capacity forecast for area {}: {} minutes", area.getName(), forecast.minutesToCapacity());
+        return generateAlertIfNotExists(area, AlertType.CAPACITY_FORECAST,
+                String.format(Locale.ROOT, "%s is forecast to reach capacity in %.0f minutes (net inflow %.1f/min)",
+                        area.getName(),
+                        forecast.minutesToCapacity(),
+                        forecast.netInflowPerMinute()));
+    }
+
+    /**
+     * Raise the alert of a configured rule that fired (see AlertRuleEngine)
+     */
+    @Transactional
+    public Alert raiseRuleAlert(Area area, AlertRuleEngine.RuleHit hit) {
+        log.info("Alert rule {} fired for area {}", hit.alertType(), area.getName());
+        return generateAlertIfNotExists(area, hit.alertType(), hit.message());
+    }
+
+    private static int levelOf(int count, int threshold, int capacity) {
+        if (count >= capacity) {
+            return RED;
         }
+        return count >= threshold ? YELLOW : GREEN;
+    }
 
-        log.info("No alert conditions met for area {}", area.getName());
-        return null;
+    /**
+     * Level against the resolve bounds: each boundary lowered by the hysteresis band
+     */
+    private int resolveLevelOf(int count, Area area) {
+        int band = (int) Math.round(area.getCapacity() * resolveBandPercent / 100.0);
+        // Never at or below zero, or an empty area would count as breached
+        return levelOf(count, Math.max(1, area.getThreshold() - band), Math.max(1, area.getCapacity() - band));
     }
 
     /**
      * Generate alert if one doesn't already exist for this area and type
+     * A repeat while an alert is unresolved, or within the re-fire interval
+     * of one that was resolved meanwhile, is only counted in memory (see
+     * ActiveAlertIndex.repeated): no query, no UPDATE and no broadcast.
      */
     private Alert generateAlertIfNotExists(Area area, AlertType alertType, String message) {
         log.info("Checking alert generation for area: {} ({}), type: {}, count: {}/{}/{}", 
                 area.getName(), area.getId(), alertType, area.getCurrentCount(), area.getThreshold(), area.getCapacity());
         
         // Check if there's already an unresolved alert of this type for this area
-        List<Alert> existingAlerts = alertRepository.findUnresolvedByAreaAndType(area.getId(), alertType);
-        if (!existingAlerts.isEmpty()) {
-            log.info("Alert already exists for area {} and type {}, skipping", area.getName(), alertType);
+        Long existingId = activeAlertIndex.activeId(area.getId(), alertType);
+        if (existingId == null && refireIntervalSeconds > 0) {
+            existingId = activeAlertIndex.raisedSince(area.getId(), alertType,
+                    System.currentTimeMillis() - refireIntervalSeconds * 1000);
+        }
+        if (existingId != null) {
+            activeAlertIndex.repeated(existingId, area.getCurrentCount());
+            log.info("Alert {} already covers area {} and type {}, counted as a repeat", existingId, area.getName(), alertType);
             return null; // Don't create duplicate alerts
         }
 
+        // The area may come from the scan's (closed) persistence context via the alert
+        // pipeline: re-point its event at this transaction so the response can load it
+        if (area.getEvent() != null) {
+            area.setEvent(eventRepository.getReferenceById(area.getEvent().getId()));
+        }
+
         Alert alert = new Alert(area, alertType, message);
         alert = alertRepository.save(alert);
+        activeAlertIndex.created(alert);
         log.info("Created new alert: id={}, area={}, type={}, message={}", alert.getId(), alert.getAreaName(), alertType, message);
 
         // Broadcast alert via WebSocket
         AlertResponse alertResponse = AlertResponse.fromEntity(alert);
         log.info("Broadcasting alert via WebSocket: {}", alertResponse.getId());
-        webSocketService.broadcastAlert(alertResponse);
+        webSocketService.broadcastAlert(alert.getOwnerEmail(), alertResponse);
 
         return alert;
     }
 
     /**
-     * Detect rapid inflow by tracking recent entries
-     */
-    private boolean detectRapidInflow(Long areaId) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime cutoff = now.minusSeconds(RAPID_INFLOW_SECONDS);
-
-        // Get or create entry list for this area
-        List<LocalDateTime> entries = recentEntries.computeIfAbsent(areaId, 
-                k -> new java.util.ArrayList<>());
-
-        // Add current entry
-        entries.add(now);
-
-        // Remove old entries
-        entries.removeIf(time -> time.isBefore(cutoff));
-
-        // Check if we've exceeded the threshold
-        return entries.size() >= RAPID_INFLOW_COUNT;
-    }
-
-    /**
-     * Auto-resolve alerts when area count drops below thresholds
+     * Resolve the unresolved alerts of one type for an area
+     * No SQL when the index has nothing to resolve, otherwise a single UPDATE.
      */
-    private void autoResolveAlerts(Area area) {
-        // If below threshold, resolve threshold breach alerts
-        if (area.getCurrentCount() < area.getThreshold()) {
-            List<Alert> thresholdAlerts = alertRepository.findAlertsToAutoResolve(
-                    area.getId(), AlertType.THRESHOLD_BREACH);
-            for (Alert alert : thresholdAlerts) {
-                alert.setStatus(AlertStatus.RESOLVED);
-                alert.setResolvedAt(LocalDateTime.now());
-                alertRepository.save(alert);
-            }
+    private void resolveActive(Area area, AlertType alertType) {
+        if (!activeAlertIndex.hasActive(area.getId(), alertType)) {
+            return;
         }
-
-        // If below capacity, resolve overcrowding alerts
-        if (area.getCurrentCount() < area.getCapacity()) {
-            List<Alert> overcrowdingAlerts = alertRepository.findAlertsToAutoResolve(
-                    area.getId(), AlertType.OVERCROWDING);
-            for (Alert alert : overcrowdingAlerts) {
-                alert.setStatus(AlertStatus.RESOLVED);
-                alert.setResolvedAt(LocalDateTime.now());
-                alertRepository.save(alert);
-            }
+        activeAlertIndex.flushRepeats(activeAlertIndex.activeIds(area.getId(), alertType));
+        int resolved = alertRepository.resolveByAreaAndType(area.getId(), alertType, LocalDateTime.now());
+        activeAlertIndex.resolved(area.getId(), alertType);
+        if (resolved > 0) {
+            webSocketService.broadcastAlertsUpdated(new WebSocketService.AlertsUpdate(
+                    "RESOLVE_AREA", area.getOwnerEmail(), null, area.getId(), alertType, resolved));
         }
     }
 
     /**
-     * Get all alerts for an owner
-     */
-    public List<AlertResponse> getAllAlerts(String ownerEmail) {
-        return alertRepository.findByOwnerEmailOrderByCreatedAtDesc(ownerEmail)
-                .stream()
-                .map(AlertResponse::fromEntity)
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Get alerts filtered by status
-     */
-    public List<AlertResponse> getAlertsByStatus(String ownerEmail, AlertStatus status) {
-        return alertRepository.findByOwnerEmailAndStatusOrderByCreatedAtDesc(ownerEmail, status)
-                .stream()
-                .map(AlertResponse::fromEntity)
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Get alerts filtered by type
+     * Query alerts with any combination of filters, one keyset page at a time
+     * @param filter Owner plus optional area, status, type and date bounds
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit Page size (capped at app.alerts.page.max-size)
+     * @throws RuntimeException if the cursor is malformed
      */
-    public List<AlertResponse> getAlertsByType(String ownerEmail, AlertType alertType) {
-        return alertRepository.findByOwnerEmailAndAlertTypeOrderByCreatedAtDesc(ownerEmail, alertType)
-                .stream()
+    @Transactional(readOnly = true)
+    public AlertPageResponse queryAlerts(AlertQueryRepository.Filter filter, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        // One extra row tells whether another page follows
+        List<Alert> rows = alertQueryRepository.findPage(filter, decodeCursor(cursor), pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<Alert> page = hasMore ? rows.subList(0, pageSize) : rows;
+        List<AlertResponse> items = page.stream()
                 .map(AlertResponse::fromEntity)
                 .collect(Collectors.toList());
+        return new AlertPageResponse(items, hasMore ? encodeCursor(page.get(page.size() - 1)) : null);
     }
 
     /**
-     * Get alerts for a specific area
+     * Lower bound of a named date range ("today", "24h", "7d", "30d"; "all" = none)
      */
-    public List<AlertResponse> getAlertsByArea(Long areaId) {
-        return alertRepository.findByArea_IdOrderByCreatedAtDesc(areaId)
-                .stream()
-                .map(AlertResponse::fromEntity)
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Get alerts within a date range
-     */
-    public List<AlertResponse> getAlertsByDateRange(String ownerEmail, String range) {
-        LocalDateTime startDate;
-        LocalDateTime endDate = LocalDateTime.now();
-
+    public static LocalDateTime startOfRange(String range) {
+        if (range == null) {
+            return LocalDateTime.now().minusHours(24);
+        }
         switch (range.toLowerCase()) {
+            case "all":
+                return null;
             case "today":
-                startDate = LocalDate.now().atStartOfDay();
-                break;
-            case "24h":
-                startDate = LocalDateTime.now().minusHours(24);
-                break;
+                return LocalDate.now().atStartOfDay();
             case "7d":
-                startDate = LocalDateTime.now().minusDays(7);
-                break;
+                return LocalDateTime.now().minusDays(7);
             case "30d":
-                startDate = LocalDateTime.now().minusDays(30);
-                break;
+                return LocalDateTime.now().minusDays(30);
+            case "24h":
             default:
-                startDate = LocalDateTime.now().minusHours(24);
+                return LocalDateTime.now().minusHours(24);
         }
+    }
 
-        return alertRepository.findByOwnerEmailAndDateRange(ownerEmail, startDate, endDate)
-                .stream()
-                .map(AlertResponse::fromEntity)
-                .collect(Collectors.toList());
+    private static String encodeCursor(Alert alert) {
+        String position = alert.getCreatedAt() + "|" + alert.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static AlertQueryRepository.Cursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('|');
+            return new AlertQueryRepository.Cursor(LocalDateTime.parse(position.substring(0, separator)),
+                    Long.parseLong(position.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
     }
 
     /**
@@ -248,10 +331,10 @@ public class AlertService {
     }
 
     /**
-     * Get count of unread alerts
+     * Get count of unread alerts (served from memory, see ActiveAlertIndex)
      */
     public long getUnreadCount(String ownerEmail) {
-        return alertRepository.countByOwnerEmailAndStatus(ownerEmail, AlertStatus.UNREAD);
+        return activeAlertIndex.unreadCount(ownerEmail);
     }
 
     /**
@@ -269,6 +352,7 @@ public class AlertService {
         if (alert.getStatus() == AlertStatus.UNREAD) {
             alert.setStatus(AlertStatus.READ);
             alert = alertRepository.save(alert);
+            activeAlertIndex.statusChanged(alertId, AlertStatus.READ);
         }
 
         return AlertResponse.fromEntity(alert);
@@ -279,6 +363,8 @@ public class AlertService {
      */
     @Transactional
     public AlertResponse resolveAlert(Long alertId, String ownerEmail) {
+        // Write pending repeats first: the entity saved below must not overwrite them
+        activeAlertIndex.flushRepeats(List.of(alertId));
         Alert alert = alertRepository.findById(alertId)
                 .orElseThrow(() -> new RuntimeException("Alert not found with id: " + alertId));
 
@@ -289,20 +375,42 @@ public class AlertService {
         alert.setStatus(AlertStatus.RESOLVED);
         alert.setResolvedAt(LocalDateTime.now());
         alert = alertRepository.save(alert);
+        activeAlertIndex.statusChanged(alertId, AlertStatus.RESOLVED);
 
         return AlertResponse.fromEntity(alert);
     }
 
     /**
-     * Mark all alerts as read
+     * Mark all alerts as read (single UPDATE)
+     * @return Number of alerts marked as read
      */
     @Transactional
-    public void markAllAsRead(String ownerEmail) {
-        List<Alert> unreadAlerts = alertRepository.findByOwnerEmailAndStatusOrderByCreatedAtDesc(
-                ownerEmail, AlertStatus.UNREAD);
-        for (Alert alert : unreadAlerts) {
-            alert.setStatus(AlertStatus.READ);
-            alertRepository.save(alert);
+    public int markAllAsRead(String ownerEmail) {
+        int updated = alertRepository.markAllAsRead(ownerEmail);
+        activeAlertIndex.ownerMarkedRead(ownerEmail);
+        if (updated > 0) {
+            webSocketService.broadcastAlertsUpdated(new WebSocketService.AlertsUpdate(
+                    "MARK_ALL_READ", ownerEmail, null, null, null, updated));
+        }
+        return updated;
+    }
+
+    /**
+     * Resolve every unresolved alert of an event (single UPDATE)
+     * @return Number of alerts resolved
+     */
+    @Transactional
+    public int resolveAllForEvent(Long eventId, String ownerEmail) {
+        Event event = eventRepository.findByIdAndOwnerEmail(eventId, ownerEmail)
+                .orElseThrow(() -> new RuntimeException("Event not found with id: " + eventId));
+
+        activeAlertIndex.flushRepeats(null);
+        int resolved = alertRepository.resolveAllForEvent(eventId, ownerEmail, LocalDateTime.now());
+        activeAlertIndex.resolvedAreas(event.getAreas().stream().map(Area::getId).toList());
+        if (resolved > 0) {
+            webSocketService.broadcastAlertsUpdated(new WebSocketService.AlertsUpdate(
+                    "RESOLVE_EVENT", ownerEmail, eventId, null, null, resolved));
         }
+        return resolved;
     }
 }
@@ -0,0 +1,194 @@
+package com.crowdmanagement.service;
+
+import com.crowdmanagement.dto.AreaResponse;
+import com.crowdmanagement.entity.Area;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Area Broadcast Coalescer
+ * ------------------------
+ * Rate-limits area broadcasts to what a dashboard can render.
+ *
+ * Each scan only replaces its area's pending state (latest wins); a ticker
+ * flushes every dirty area once per tick-ms as one batched message per
+ * topic (WebSocketService.broadcastAreaUpdates). 200 scans per second on
+ * one area become one update per tick.
+ *
+ * Every update gets a sequence number from one counter, sent with the
+ * compact deltas so clients can drop anything older than what they hold.
+ * An update published inside a transaction is sequenced and queued only
+ * after it commits: a snapshot read from the database after reading the
+ * sequence then already holds every update numbered at or below it, and a
+ * rolled back scan is never broadcast. Scans of one area commit in order
+ * on their shard thread (ScanDispatcher), so their numbers follow that
+ * order.
+ *
+ * Bypass: a scan that changes the area's status (GREEN / YELLOW / RED) is
+ * sent at once, replacing anything pending for that area. Immediate sends
+ * and flushes share a lock so an area's pending state is never sent after
+ * a newer immediate one.
+ *
+ * Metrics: broadcast.area.coalesced (updates replaced before a flush),
+ * broadcast.area.immediate (status-change bypasses)
+ */
+@Service
+public class AreaBroadcastCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(AreaBroadcastCoalescer.class);
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.websocket.coalesce.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.websocket.coalesce.tick-ms:150}")
+    private long tickMs;
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object sendLock = new Object();
+
+    private ScheduledExecutorService ticker;
+    private Counter coalesced;
+    private Counter immediate;
+
+    @PostConstruct
+    public void start() {
+        coalesced = meterRegistry.counter("broadcast.area.coalesced");
+        immediate = meterRegistry.counter("broadcast.area.immediate");
+        if (enabled && tickMs > 0) {
+            ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "area-broadcast-tick");
+                thread.setDaemon(true);
+                return thread;
+            });
+            ticker.scheduleWithFixedDelay(this::flushSafely, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+        flush();
+    }
+
+    /**
+     * Publish an area's new state after a scan (or batch), once its transaction commits
+     * @param area Area response with the new count
+     * @param previousCount Count before the scan, to detect status changes
+     * @param scanType ENTRY or EXIT
+     */
+    public void publish(AreaResponse area, int previousCount, String scanType) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishNow(area, previousCount, scanType);
+                }
+            });
+            return;
+        }
+        publishNow(area, previousCount, scanType);
+    }
+
+    private void publishNow(AreaResponse area, int previousCount, String scanType) {
+        Pending update = new Pending(area, sequence.incrementAndGet(),
+                new WebSocketService.ScanEvent(area.getId(), scanType, area.getCurrentCount()));
+        boolean statusChanged = !Area.statusFor(previousCount, area.getThreshold(), area.getCapacity())
+                .equals(area.getStatus());
+
+        if (ticker == null || statusChanged) {
+            synchronized (sendLock) {
+                pending.remove(area.getId());
+                send(List.of(update));
+            }
+            if (statusChanged) {
+                immediate.increment();
+            }
+            return;
+        }
+        if (pending.put(area.getId(), update) != null) {
+            coalesced.increment();
+        }
+    }
+
+    /**
+     * Latest sequence number handed out; every update published after this
+     * call gets a higher one
+     */
+    public long currentSequence() {
+        return sequence.get();
+    }
+
+    /**
+     * Send every pending area update as one batch
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        synchronized (sendLock) {
+            List<Pending> batch = new ArrayList<>(pending.size());
+            for (Long areaId : pending.keySet()) {
+                Pending update = pending.remove(areaId);
+                if (update != null) {
+                    batch.add(update);
+                }
+            }
+            send(batch);
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Area broadcast flush failed: {}", e.getMessage());
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<AreaResponse> areas = new ArrayList<>(batch.size());
+        List<WebSocketService.AreaDelta> deltas = new ArrayList<>(batch.size());
+        List<WebSocketService.ScanEvent> scans = new ArrayList<>(batch.size());
+        for (Pending update : batch) {
+            areas.add(update.area());
+            deltas.add(WebSocketService.AreaDelta.of(update.area(), update.seq()));
+            scans.add(update.scan());
+        }
+        webSocketService.broadcastAreaUpdates(areas, deltas, scans);
+    }
+
+    /**
+     * Latest state of one area waiting for the next tick
+     */
+    private record Pending(AreaResponse area, long seq, WebSocketService.ScanEvent scan) {}
+}
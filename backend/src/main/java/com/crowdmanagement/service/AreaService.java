@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -23,6 +24,24 @@ public class AreaService {
     @Autowired
     private AreaRepository areaRepository;
 
+    @Autowired
+    private OccupancyStore occupancyStore;
+
+    @Autowired
+    private RapidInflowDetector rapidInflowDetector;
+
+    @Autowired
+    private ActiveAlertIndex activeAlertIndex;
+
+    @Autowired
+    private InflowForecaster inflowForecaster;
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Autowired
+    private AreaBroadcastCoalescer areaBroadcastCoalescer;
+
     /**
      * Get all areas for a specific owner
      * @param ownerEmail Owner's email
@@ -31,7 +50,7 @@ public class AreaService {
     public List<AreaResponse> getAllAreas(String ownerEmail) {
         return areaRepository.findByOwnerEmailOrderByNameAsc(ownerEmail)
                 .stream()
-                .map(AreaResponse::fromEntity)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 
@@ -45,7 +64,7 @@ public class AreaService {
     public AreaResponse getAreaById(Long id, String ownerEmail) {
         Area area = areaRepository.findByIdAndOwnerEmail(id, ownerEmail)
                 .orElseThrow(() -> new RuntimeException("Area not found with id: " + id));
-        return AreaResponse.fromEntity(area);
+        return toResponse(area);
     }
 
     /**
@@ -56,7 +75,7 @@ public class AreaService {
     public AreaResponse getAreaByIdPublic(Long id) {
         Area area = areaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Area not found with id: " + id));
-        return AreaResponse.fromEntity(area);
+        return toResponse(area);
     }
 
     /**
@@ -92,7 +111,10 @@ public class AreaService {
         area.setCurrentCount(0);
 
         Area saved = areaRepository.save(area);
-        return AreaResponse.fromEntity(saved);
+        occupancyStore.register(saved);
+        AreaResponse response = toResponse(saved);
+        webSocketService.broadcastAreaConfig(response);
+        return response;
     }
 
     /**
@@ -102,6 +124,7 @@ public class AreaService {
      * @param ownerEmail Owner's email
      * @return Updated area
      */
+    @Transactional
     public AreaResponse updateArea(Long id, AreaRequest request, String ownerEmail) {
         Area area = areaRepository.findByIdAndOwnerEmail(id, ownerEmail)
                 .orElseThrow(() -> new RuntimeException("Area not found with id: " + id));
@@ -117,12 +140,17 @@ public class AreaService {
             throw new RuntimeException("Threshold cannot exceed capacity");
         }
 
+        // Config columns only: saving the entity would overwrite current_count with the loaded value
+        areaRepository.updateConfig(id, request.getName(), request.getCapacity(), request.getThreshold());
+        // The update cleared the persistence context, so these changes stay in memory
         area.setName(request.getName());
         area.setCapacity(request.getCapacity());
         area.setThreshold(request.getThreshold());
 
-        Area saved = areaRepository.save(area);
-        return AreaResponse.fromEntity(saved);
+        occupancyStore.register(area);
+        AreaResponse response = toResponse(area);
+        webSocketService.broadcastAreaConfig(response);
+        return response;
     }
 
     /**
@@ -134,6 +162,21 @@ public class AreaService {
         Area area = areaRepository.findByIdAndOwnerEmail(id, ownerEmail)
                 .orElseThrow(() -> new RuntimeException("Area not found with id: " + id));
         areaRepository.delete(area);
+        forgetArea(id);
+    }
+
+    /**
+     * Drop everything held in memory for a deleted area: its counter,
+     * inflow ring, forecast and active alert keys. Called for areas
+     * deleted on their own and for areas deleted with (or replaced in)
+     * an event, so a reused ID starts clean.
+     * @param id Area ID
+     */
+    public void forgetArea(Long id) {
+        occupancyStore.remove(id);
+        rapidInflowDetector.remove(id);
+        inflowForecaster.remove(id);
+        activeAlertIndex.removeArea(id);
     }
 
     /**
@@ -143,6 +186,9 @@ public class AreaService {
      */
     @Transactional
     public Integer incrementCount(Long id) {
+        if (occupancyStore.isEnabled()) {
+            return occupancyStore.apply(id, 1).current();
+        }
         areaRepository.incrementCount(id);
         Area area = areaRepository.findById(id).orElseThrow();
         return area.getCurrentCount();
@@ -155,6 +201,9 @@ public class AreaService {
      */
     @Transactional
     public Integer decrementCount(Long id) {
+        if (occupancyStore.isEnabled()) {
+            return occupancyStore.apply(id, -1).current();
+        }
         areaRepository.decrementCount(id);
         Area area = areaRepository.findById(id).orElseThrow();
         return area.getCurrentCount();
@@ -170,6 +219,11 @@ public class AreaService {
         Area area = areaRepository.findByIdAndOwnerEmail(id, ownerEmail)
                 .orElseThrow(() -> new RuntimeException("Area not found with id: " + id));
         areaRepository.resetCount(id);
+        occupancyStore.reset(id);
+        rapidInflowDetector.remove(id);
+        inflowForecaster.remove(id);
+        area.setCurrentCount(0);
+        webSocketService.broadcastAreaConfig(toResponse(area));
     }
 
     /**
@@ -178,9 +232,77 @@ public class AreaService {
      * @return List of areas needing attention
      */
     public List<AreaResponse> getAreasNeedingAttention(String ownerEmail) {
+        if (occupancyStore.isEnabled()) {
+            // The row count may lag the in-memory counter, so filter on the live value
+            return areaRepository.findByOwnerEmailOrderByNameAsc(ownerEmail)
+                    .stream()
+                    .filter(area -> occupancyStore.currentCount(area) >= area.getThreshold())
+                    .map(this::toResponse)
+                    .collect(Collectors.toList());
+        }
         return areaRepository.findAreasNeedingAttentionByOwner(ownerEmail)
                 .stream()
-                .map(AreaResponse::fromEntity)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Live snapshot of an owner's or an event's areas for a new subscriber
+     * Built from the occupancy store's cached configuration and counters
+     * when it is enabled, otherwise from one query. The sequence number is
+     * read first, so every delta with a higher one may be newer than the
+     * snapshot and every other one is already in it: in-memory counters are
+     * updated before their delta is numbered, and database scans are
+     * numbered only after they commit (see AreaBroadcastCoalescer).
+     * @param ownerEmail Owner's email, or null for all owners
+     * @param eventId Event ID, or null for all events
+     * @return Sequence number and areas sorted by name
+     */
+    public AreaSnapshot getAreaSnapshot(String ownerEmail, Long eventId) {
+        long seq = areaBroadcastCoalescer.currentSequence();
+        List<AreaResponse> areas;
+        if (occupancyStore.isEnabled()) {
+            areas = occupancyStore.getStates().stream()
+                    .filter(state -> ownerEmail == null || ownerEmail.equals(state.getConfig().ownerEmail()))
+                    .filter(state -> eventId == null || eventId.equals(state.getConfig().eventId()))
+                    .map(this::toResponse)
+                    .sorted(Comparator.comparing(AreaResponse::getName))
+                    .collect(Collectors.toList());
+        } else {
+            List<Area> entities = eventId != null
+                    ? areaRepository.findByEventIdOrderByNameAsc(eventId)
+                    : areaRepository.findByOwnerEmailOrderByNameAsc(ownerEmail);
+            areas = entities.stream()
+                    .filter(area -> ownerEmail == null || ownerEmail.equals(area.getOwnerEmail()))
+                    .map(this::toResponse)
+                    .collect(Collectors.toList());
+        }
+        return new AreaSnapshot(seq, areas);
+    }
+
+    /**
+     * Map an in-memory counter and its cached configuration to a response
+     */
+    private AreaResponse toResponse(OccupancyStore.AreaState state) {
+        OccupancyStore.AreaConfig config = state.getConfig();
+        int count = state.getCount();
+        AreaResponse response = new AreaResponse(state.getId(), config.name(), config.capacity(), config.threshold(),
+                count, Area.statusFor(count, config.threshold(), config.capacity()),
+                Area.occupancyFor(count, config.capacity()), config.generateQr(), config.eventId());
+        response.setOwnerEmail(config.ownerEmail());
+        return inflowForecaster.annotate(response);
+    }
+
+    /**
+     * Areas as of a broadcast sequence number
+     */
+    public record AreaSnapshot(long seq, List<AreaResponse> areas) {}
+
+    /**
+     * Map an area to its response using the authoritative (in-memory) count
+     * and its current inflow forecast
+     */
+    private AreaResponse toResponse(Area area) {
+        return inflowForecaster.annotate(AreaResponse.fromEntity(area, occupancyStore.currentCount(area)));
+    }
 }
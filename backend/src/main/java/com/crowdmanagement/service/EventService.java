@@ -21,13 +21,22 @@ public class EventService {
     @Autowired
     private EventRepository eventRepository;
 
+    @Autowired
+    private OccupancyStore occupancyStore;
+
+    @Autowired
+    private InflowForecaster inflowForecaster;
+
+    @Autowired
+    private AreaService areaService;
+
     /**
      * Get all events for a specific owner
      */
     public List<EventResponse> getAllEvents(String ownerEmail) {
         return eventRepository.findByOwnerEmailOrderByEventDateTimeDesc(ownerEmail)
                 .stream()
-                .map(EventResponse::fromEntity)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 
@@ -38,7 +47,7 @@ public class EventService {
         LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
         return eventRepository.findLiveEvents(ownerEmail, now)
                 .stream()
-                .map(EventResponse::fromEntity)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 
@@ -49,7 +58,7 @@ public class EventService {
         LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
         return eventRepository.findUpcomingEvents(ownerEmail, now)
                 .stream()
-                .map(EventResponse::fromEntity)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 
@@ -61,7 +70,7 @@ public class EventService {
         LocalDateTime dayAgo = now.minusHours(24);
         return eventRepository.findCompletedEvents(ownerEmail, now, dayAgo)
                 .stream()
-                .map(EventResponse::fromEntity)
+                .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 
@@ -71,7 +80,7 @@ public class EventService {
     public EventResponse getEventById(Long id, String ownerEmail) {
         Event event = eventRepository.findByIdAndOwnerEmail(id, ownerEmail)
                 .orElseThrow(() -> new RuntimeException("Event not found with id: " + id));
-        return EventResponse.fromEntity(event);
+        return toResponse(event);
     }
 
     /**
@@ -80,7 +89,7 @@ public class EventService {
     public EventResponse getEventByIdPublic(Long id) {
         Event event = eventRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Event not found with id: " + id));
-        return EventResponse.fromEntity(event);
+        return toResponse(event);
     }
 
     /**
@@ -127,7 +136,8 @@ public class EventService {
         }
 
         Event saved = eventRepository.save(event);
-        return EventResponse.fromEntity(saved);
+        saved.getAreas().forEach(occupancyStore::register);
+        return toResponse(saved);
     }
 
     /**
@@ -158,6 +168,7 @@ public class EventService {
 
         // Clear existing areas and flush immediately so the DELETE SQL runs
         // before the INSERT SQL for new areas, avoiding the unique constraint violation.
+        event.getAreas().forEach(area -> areaService.forgetArea(area.getId()));
         event.getAreas().clear();
         eventRepository.saveAndFlush(event);
 
@@ -178,8 +189,9 @@ public class EventService {
             }
         }
 
-        Event saved = eventRepository.save(event);
-        return EventResponse.fromEntity(saved);
+        Event saved = eventRepository.saveAndFlush(event);
+        saved.getAreas().forEach(occupancyStore::register);
+        return toResponse(saved);
     }
 
     /**
@@ -189,9 +201,19 @@ public class EventService {
     public void deleteEvent(Long id, String ownerEmail) {
         Event event = eventRepository.findByIdAndOwnerEmail(id, ownerEmail)
                 .orElseThrow(() -> new RuntimeException("Event not found with id: " + id));
+        event.getAreas().forEach(area -> areaService.forgetArea(area.getId()));
         eventRepository.delete(event);
     }
 
+    /**
+     * Map an event to its response using live in-memory area counts
+     */
+    private EventResponse toResponse(Event event) {
+        EventResponse response = EventResponse.fromEntity(event, occupancyStore::currentCount);
+        response.getAreas().forEach(inflowForecaster::annotate);
+        return response;
+    }
+
     /**
      * Get event entity by ID (for internal use)
      */
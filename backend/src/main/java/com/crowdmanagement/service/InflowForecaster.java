@@ -0,0 +1,164 @@
+package com.crowdmanagement.service;
+
+import com.crowdmanagement.dto.AreaResponse;
+import com.crowdmanagement.entity.Area;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inflow Forecaster
+ * -----------------
+ * Keeps an exponentially weighted net inflow rate per area and derives the
+ * time until the area reaches its threshold and its capacity.
+ *
+ * Each area holds one decayed sum of count changes: on a change of `delta`
+ * at time t, sum = sum * exp(-(t - last) / tau) + delta, and the rate is
+ * sum / tau. That is O(1) per scan, needs no history and no scan_logs
+ * queries; older scans fade out with the configured half-life.
+ *
+ * Fed from AlertPipeline.publish, which sees every count change. A change
+ * that brings time-to-capacity inside the horizon raises a
+ * CAPACITY_FORECAST alert (once, until the forecast leaves the horizon).
+ */
+@Service
+public class InflowForecaster {
+
+    @Value("${app.forecast.half-life-seconds:300}")
+    private double halfLifeSeconds;
+
+    @Value("${app.alerts.forecast.horizon-minutes:10}")
+    private double horizonMinutes;
+
+    // Rates below this (people per minute, either way) count as steady
+    private static final double MIN_RATE_PER_MINUTE = 0.01;
+
+    private final Map<Long, Rate> rates = new ConcurrentHashMap<>();
+
+    // Time constant of the decay, in millis
+    private double tauMillis;
+
+    @PostConstruct
+    public void init() {
+        tauMillis = Math.max(1.0, halfLifeSeconds) * 1000 / Math.log(2);
+    }
+
+    /**
+     * Record a count change
+     * @param area The area, carrying its new count
+     * @param previousCount Count before the scan (or batch)
+     * @return true if time-to-capacity has just entered the forecast horizon
+     */
+    public boolean record(Area area, int previousCount) {
+        return record(area, previousCount, System.currentTimeMillis());
+    }
+
+    /**
+     * Record a count change at a given time (epoch millis)
+     */
+    public boolean record(Area area, int previousCount, long nowMillis) {
+        int delta = area.getCurrentCount() - previousCount;
+        if (delta == 0) {
+            return false;
+        }
+        Rate rate = rates.get(area.getId());
+        if (rate == null) {
+            rate = rates.computeIfAbsent(area.getId(), id -> new Rate());
+        }
+        double perMinute = rate.add(delta, nowMillis, tauMillis);
+        Double toCapacity = minutesTo(area.getCapacity(), area.getCurrentCount(), perMinute);
+        return rate.warn(toCapacity != null && toCapacity <= horizonMinutes);
+    }
+
+    /**
+     * Current forecast for an area
+     */
+    public Forecast forecast(Long areaId, int currentCount, int threshold, int capacity) {
+        Rate rate = rates.get(areaId);
+        double perMinute = rate != null ? rate.perMinute(System.currentTimeMillis(), tauMillis) : 0;
+        return new Forecast(round(perMinute),
+                minutesTo(threshold, currentCount, perMinute),
+                minutesTo(capacity, currentCount, perMinute));
+    }
+
+    /**
+     * Fill the forecast fields of an area response
+     */
+    public AreaResponse annotate(AreaResponse response) {
+        Forecast forecast = forecast(response.getId(), response.getCurrentCount(),
+                response.getThreshold(), response.getCapacity());
+        response.setNetInflowPerMinute(forecast.netInflowPerMinute());
+        response.setMinutesToThreshold(forecast.minutesToThreshold());
+        response.setMinutesToCapacity(forecast.minutesToCapacity());
+        return response;
+    }
+
+    /**
+     * Forget an area (deleted or reset)
+     */
+    public void remove(Long areaId) {
+        rates.remove(areaId);
+    }
+
+    public double getHorizonMinutes() {
+        return horizonMinutes;
+    }
+
+    /**
+     * Minutes until `target` at the given rate, or null if already there or not approaching
+     */
+    private static Double minutesTo(int target, int currentCount, double perMinute) {
+        if (currentCount >= target || perMinute < MIN_RATE_PER_MINUTE) {
+            return null;
+        }
+        return round((target - currentCount) / perMinute);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    /**
+     * Net inflow (people per minute) and the minutes to threshold / capacity
+     * (null when the area is already there or not filling up)
+     */
+    public record Forecast(double netInflowPerMinute, Double minutesToThreshold, Double minutesToCapacity) {}
+
+    /**
+     * Decayed sum of count changes of one area
+     */
+    static class Rate {
+        private double sum;
+        private long lastAt;
+        private boolean warned;
+
+        synchronized double add(int delta, long nowMillis, double tauMillis) {
+            sum = decayed(nowMillis, tauMillis) + delta;
+            lastAt = nowMillis;
+            return sum / tauMillis * 60_000;
+        }
+
+        synchronized double perMinute(long nowMillis, double tauMillis) {
+            return decayed(nowMillis, tauMillis) / tauMillis * 60_000;
+        }
+
+        /**
+         * Edge trigger: true only when inHorizon turns true
+         */
+        synchronized boolean warn(boolean inHorizon) {
+            boolean fire = inHorizon && !warned;
+            warned = inHorizon;
+            return fire;
+        }
+
+        private double decayed(long nowMillis, double tauMillis) {
+            if (lastAt == 0) {
+                return 0;
+            }
+            return sum * Math.exp(-Math.max(0, nowMillis - lastAt) / tauMillis);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.crowdmanagement.service;
+
+import com.crowdmanagement.entity.Area;
+import com.crowdmanagement.entity.Event;
+import com.crowdmanagement.repository.AreaRepository;
+import com.crowdmanagement.repository.ScanCommitRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Occupancy Store
+ * ---------------
+ * In-memory, authoritative occupancy counters keyed by area id.
+ * Counters are updated with CAS (no row lock on the scan path) and written
+ * behind to areas.current_count every flush interval, or sooner once an
+ * area has drifted by flush-delta from its last flushed value.
+ *
+ * Counters are per JVM: with several backend nodes, scans for an area must
+ * reach the same node, or the store must be disabled. It is therefore off
+ * by default, and refuses to start together with the STOMP broker relay
+ * (app.websocket.relay.enabled), which exists for multi-node deployments.
+ * The price of the default is the row lock it avoids: with the store off,
+ * every scan updates areas.current_count in the database.
+ */
+@Service
+public class OccupancyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(OccupancyStore.class);
+
+    @Autowired
+    private AreaRepository areaRepository;
+
+    @Autowired
+    private ScanCommitRepository scanCommitRepository;
+
+    @Value("${app.occupancy.in-memory:false}")
+    private boolean enabled;
+
+    @Value("${app.websocket.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    @Value("${app.occupancy.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${app.occupancy.flush-delta:50}")
+    private int flushDelta;
+
+    private final Map<Long, AreaState> states = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "occupancy-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Per-node counters and multi-node fan-out do not mix: each node would count its own scans
+     */
+    @PostConstruct
+    public void checkDeployment() {
+        if (enabled && relayEnabled) {
+            throw new IllegalStateException("app.occupancy.in-memory=true keeps counters per node and cannot be "
+                    + "combined with app.websocket.relay.enabled=true; disable one of them");
+        }
+    }
+
+    /**
+     * Load all counters from the database and start the write-behind flusher
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        for (Area area : areaRepository.findAll()) {
+            register(area);
+        }
+        log.info("Occupancy store loaded {} areas (flush every {} ms or {} scans)",
+                states.size(), flushIntervalMs, flushDelta);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Flush pending counts before shutdown so the table reflects the final state
+     */
+    @PreDestroy
+    public void stop() {
+        flusher.shutdownNow();
+        if (enabled) {
+            flush();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the state for an area, loading it from the database on first use
+     * @throws RuntimeException if the area does not exist
+     */
+    public AreaState getState(Long areaId) {
+        AreaState state = states.get(areaId);
+        if (state != null) {
+            return state;
+        }
+        Area area = areaRepository.findById(areaId)
+                .orElseThrow(() -> new RuntimeException("Area not found with id: " + areaId));
+        return register(area);
+    }
+
+    /**
+     * All loaded counters with their cached configuration
+     */
+    public Collection<AreaState> getStates() {
+        return states.values();
+    }
+
+    /**
+     * Current count for an area: the in-memory counter when enabled, the entity value otherwise
+     */
+    public int currentCount(Area area) {
+        if (!enabled || area.getId() == null) {
+            return area.getCurrentCount();
+        }
+        AreaState state = states.get(area.getId());
+        return state != null ? state.getCount() : register(area).getCount();
+    }
+
+    /**
+     * Apply a delta to an area counter. The count never drops below zero.
+     * @return The count before and after the change
+     */
+    public CountChange apply(Long areaId, int delta) {
+        AreaState state = getState(areaId);
+        CountChange change = state.apply(delta);
+        if (Math.abs(change.current() - state.flushedCount) >= flushDelta
+                && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+        return change;
+    }
+
+    /**
+     * Apply a sequence of deltas to an area counter in one CAS.
+     * The count is floored at zero after each step, exactly as if the deltas
+     * had been applied one by one.
+     * @return The count before the first and after the last delta
+     */
+    public CountChange applyAll(Long areaId, int[] deltas) {
+        AreaState state = getState(areaId);
+        CountChange change = state.applyAll(deltas);
+        if (Math.abs(change.current() - state.flushedCount) >= flushDelta
+                && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+        return change;
+    }
+
+    /**
+     * Counts after each delta, starting from a given count and never dropping below zero
+     */
+    public static int[] runningCounts(int start, int[] deltas) {
+        int[] counts = new int[deltas.length];
+        int count = start;
+        for (int i = 0; i < deltas.length; i++) {
+            count = Math.max(count + deltas[i], 0);
+            counts[i] = count;
+        }
+        return counts;
+    }
+
+    /**
+     * Register an area (or refresh its configuration). An existing counter keeps its value.
+     */
+    public AreaState register(Area area) {
+        AreaState state = states.computeIfAbsent(area.getId(), id -> new AreaState(id, area.getCurrentCount()));
+        state.config = AreaConfig.of(area);
+        return state;
+    }
+
+    /**
+     * Reset an area counter to zero (the caller resets the row itself)
+     */
+    public void reset(Long areaId) {
+        AreaState state = states.get(areaId);
+        if (state != null) {
+            state.count.set(0);
+            state.flushedCount = 0;
+        }
+    }
+
+    /**
+     * Forget an area that has been deleted
+     */
+    public void remove(Long areaId) {
+        states.remove(areaId);
+    }
+
+    /**
+     * Write every counter that changed since the last flush to areas.current_count
+     */
+    public synchronized void flush() {
+        flushRequested.set(false);
+        Map<Long, Integer> dirty = new HashMap<>();
+        for (AreaState state : states.values()) {
+            int count = state.getCount();
+            if (count != state.flushedCount) {
+                dirty.put(state.id, count);
+            }
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+        scanCommitRepository.updateCounts(dirty);
+        for (Map.Entry<Long, Integer> entry : dirty.entrySet()) {
+            AreaState state = states.get(entry.getKey());
+            if (state != null) {
+                state.flushedCount = entry.getValue();
+            }
+        }
+        log.debug("Flushed {} area counters", dirty.size());
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Occupancy flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Count before and after a change
+     */
+    public record CountChange(int previous, int current) {}
+
+    /**
+     * Area settings needed on the scan path, so it never has to load the entity
+     */
+    public record AreaConfig(String name, String ownerEmail, Long eventId, Integer capacity,
+                             Integer threshold, Boolean generateQr) {
+        static AreaConfig of(Area area) {
+            return new AreaConfig(area.getName(), area.getOwnerEmail(), area.getEventId(),
+                    area.getCapacity(), area.getThreshold(), area.getGenerateQr());
+        }
+    }
+
+    /**
+     * Counter and configuration for a single area
+     */
+    public static class AreaState {
+        private final Long id;
+        private final AtomicInteger count;
+        private volatile AreaConfig config;
+        private volatile int flushedCount;
+
+        AreaState(Long id, int count) {
+            this.id = id;
+            this.count = new AtomicInteger(count);
+            this.flushedCount = count;
+        }
+
+        CountChange applyAll(int[] deltas) {
+            while (true) {
+                int previous = count.get();
+                int current = previous;
+                for (int delta : deltas) {
+                    current = Math.max(current + delta, 0);
+                }
+                if (count.compareAndSet(previous, current)) {
+                    return new CountChange(previous, current);
+                }
+            }
+        }
+
+        CountChange apply(int delta) {
+            while (true) {
+                int previous = count.get();
+                int current = Math.max(previous + delta, 0);
+                if (count.compareAndSet(previous, current)) {
+                    return new CountChange(previous, current);
+                }
+            }
+        }
+
+        /**
+         * Build a detached Area from the cached configuration (no query)
+         * @param event Event reference (may be a lazy proxy or null)
+         * @param currentCount Count to expose on the area
+         */
+        public Area toArea(Event event, int currentCount) {
+            AreaConfig snapshot = config;
+            Area area = new Area();
+            area.setId(id);
+            area.setName(snapshot.name());
+            area.setOwnerEmail(snapshot.ownerEmail());
+            area.setEvent(event);
+            area.setCapacity(snapshot.capacity());
+            area.setThreshold(snapshot.threshold());
+            area.setCurrentCount(currentCount);
+            area.setGenerateQr(snapshot.generateQr());
+            return area;
+        }
+
+        public Long getId() { return id; }
+        public int getCount() { return count.get(); }
+        public AreaConfig getConfig() { return config; }
+    }
+}
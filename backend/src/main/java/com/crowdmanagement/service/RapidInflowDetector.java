@@ -0,0 +1,129 @@
+package com.crowdmanagement.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Rapid Inflow Detector
+ * ---------------------
+ * Detects "count entries within window-seconds" per area.
+ *
+ * Each area keeps a ring of the last `count` entry times (epoch millis) in
+ * an AtomicLongArray. Recording an entry claims the next slot with one
+ * getAndIncrement and writes it; inflow is rapid when the entry `count - 1`
+ * positions back is still inside the window. Updates are O(1), lock-free
+ * and allocate nothing once the area's ring exists.
+ *
+ * Rings of areas without entries for idle-evict-seconds are dropped by a
+ * background sweep. The idle time is at least the window, so an evicted
+ * ring never holds an entry that could still count.
+ */
+@Service
+public class RapidInflowDetector {
+
+    @Value("${app.alerts.rapid-inflow.count:10}")
+    private int count;
+
+    @Value("${app.alerts.rapid-inflow.window-seconds:30}")
+    private int windowSeconds;
+
+    @Value("${app.alerts.rapid-inflow.idle-evict-seconds:300}")
+    private int idleEvictSeconds;
+
+    private final Map<Long, Window> windows = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rapid-inflow-evict");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        long idleMs = TimeUnit.SECONDS.toMillis(Math.max(idleEvictSeconds, windowSeconds));
+        evictor.scheduleWithFixedDelay(() -> evictIdle(System.currentTimeMillis() - idleMs),
+                idleMs, idleMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        evictor.shutdownNow();
+    }
+
+    /**
+     * Record an entry for an area
+     * @return true if the area has seen `count` entries within the window
+     */
+    public boolean recordEntry(Long areaId) {
+        return recordEntry(areaId, System.currentTimeMillis());
+    }
+
+    /**
+     * Record an entry at a given time (epoch millis)
+     */
+    public boolean recordEntry(Long areaId, long nowMillis) {
+        Window window = windows.get(areaId);
+        if (window == null) {
+            window = windows.computeIfAbsent(areaId, id -> new Window(count));
+        }
+        return window.record(nowMillis, TimeUnit.SECONDS.toMillis(windowSeconds));
+    }
+
+    /**
+     * Drop rings whose last entry is older than the cutoff
+     */
+    public void evictIdle(long cutoffMillis) {
+        windows.values().removeIf(window -> window.lastEntryAt < cutoffMillis);
+    }
+
+    /**
+     * Forget an area (deleted or reset)
+     */
+    public void remove(Long areaId) {
+        windows.remove(areaId);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    /**
+     * Entry times of one area, newest at slot (sequence - 1) % size
+     */
+    static class Window {
+        private final AtomicLongArray ring;
+        private final AtomicLong sequence = new AtomicLong();
+        private volatile long lastEntryAt;
+
+        Window(int size) {
+            this.ring = new AtomicLongArray(Math.max(1, size));
+        }
+
+        boolean record(long nowMillis, long windowMillis) {
+            int size = ring.length();
+            long seq = sequence.getAndIncrement();
+            ring.set((int) (seq % size), nowMillis);
+            lastEntryAt = nowMillis;
+            if (seq < size - 1) {
+                return false;
+            }
+            // Oldest of the last `size` entries; a concurrent writer can only make it newer
+            long oldest = ring.get((int) ((seq + 1) % size));
+            return nowMillis - oldest <= windowMillis;
+        }
+    }
+}
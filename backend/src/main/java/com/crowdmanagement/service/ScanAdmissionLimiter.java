@@ -0,0 +1,182 @@
+package com.crowdmanagement.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scan Admission Limiter
+ * ----------------------
+ * Bounds the number of scans in flight and sheds the excess immediately
+ * (HTTP 429) instead of letting requests queue for a database connection.
+ *
+ * The limit adapts to observed latency (AIMD):
+ * - every window of samples, the window's average latency is compared with
+ *   the best average seen so far (the "no-load" latency, which slowly decays
+ *   upwards so it can follow a slower database)
+ * - above tolerance x no-load, or when a scan was shed downstream: the limit
+ *   is multiplied by the backoff ratio
+ * - otherwise, if the limit was actually reached in the window: +1
+ *
+ * A batch holds one permit weighted by its size (capped at the current
+ * limit, so a batch larger than the limit is admitted alone when the
+ * pipeline is idle instead of never).
+ *
+ * Metrics: scans.admission.limit, scans.admission.inflight,
+ * scans.admission.rejected
+ */
+@Service
+public class ScanAdmissionLimiter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.scan.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.scan.admission.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${app.scan.admission.min-limit:2}")
+    private int minLimit;
+
+    @Value("${app.scan.admission.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${app.scan.admission.latency-tolerance:2.0}")
+    private double latencyTolerance;
+
+    @Value("${app.scan.admission.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${app.scan.admission.window-size:100}")
+    private int windowSize;
+
+    @Value("${app.scan.admission.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // Window state, guarded by this (windowSaturated is also set lock-free on admit)
+    private long windowLatencySum;
+    private int windowSamples;
+    private volatile boolean windowSaturated;
+    private boolean windowOverloaded;
+    private double noLoadLatency = Double.MAX_VALUE;
+
+    private Counter rejected;
+
+    @PostConstruct
+    public void init() {
+        limit = initialLimit;
+        rejected = meterRegistry.counter("scans.admission.rejected");
+        Gauge.builder("scans.admission.limit", this, ScanAdmissionLimiter::getLimit).register(meterRegistry);
+        Gauge.builder("scans.admission.inflight", inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Try to admit a scan
+     * @return A permit to release when the scan completes, or null if the scan must be shed
+     */
+    public Permit tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * Try to admit a batch of scans as one weighted permit
+     * @param scans Number of scans in the batch
+     * @return A permit to release when the batch completes, or null if the batch must be shed
+     */
+    public Permit tryAcquire(int scans) {
+        if (!enabled) {
+            return new Permit(System.nanoTime(), 0);
+        }
+        int currentLimit = (int) limit;
+        int weight = Math.max(1, Math.min(scans, currentLimit));
+        int current = inFlight.addAndGet(weight);
+        if (current > currentLimit) {
+            inFlight.addAndGet(-weight);
+            rejected.increment();
+            return null;
+        }
+        if (current >= currentLimit) {
+            windowSaturated = true;
+        }
+        return new Permit(System.nanoTime(), weight);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    private void release(long startedAt, int weight, boolean overloaded) {
+        if (!enabled) {
+            return;
+        }
+        inFlight.addAndGet(-weight);
+        long latency = System.nanoTime() - startedAt;
+
+        synchronized (this) {
+            windowLatencySum += latency;
+            windowSamples++;
+            windowOverloaded |= overloaded;
+            if (windowSamples < windowSize && !overloaded) {
+                return;
+            }
+
+            double average = (double) windowLatencySum / windowSamples;
+            noLoadLatency = Math.min(noLoadLatency * 1.01, average);
+
+            double next = limit;
+            if (windowOverloaded || average > noLoadLatency * latencyTolerance) {
+                next = limit * backoffRatio;
+            } else if (windowSaturated) {
+                next = limit + 1;
+            }
+            limit = Math.max(minLimit, Math.min(maxLimit, next));
+
+            windowLatencySum = 0;
+            windowSamples = 0;
+            windowSaturated = false;
+            windowOverloaded = false;
+        }
+    }
+
+    /**
+     * Admission for one scan or batch; release exactly once
+     */
+    public class Permit {
+        private final long startedAt;
+        private final int weight;
+
+        private Permit(long startedAt, int weight) {
+            this.startedAt = startedAt;
+            this.weight = weight;
+        }
+
+        /**
+         * Scan finished (successfully or with a client error)
+         */
+        public void release() {
+            ScanAdmissionLimiter.this.release(startedAt, weight, false);
+        }
+
+        /**
+         * Scan was shed further down (shard queue full, timeout): back off now
+         */
+        public void releaseOverloaded() {
+            ScanAdmissionLimiter.this.release(startedAt, weight, true);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.crowdmanagement.service;
+
+import com.crowdmanagement.dto.ScanResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Scan Deduplicator
+ * -----------------
+ * Makes scans idempotent on their client scan ID.
+ * IDs live in two generations of hash maps. When the current generation is
+ * older than half the window (or full), it becomes the previous one and the
+ * old previous generation is dropped. Every ID is therefore remembered for
+ * at least half the window and at most the whole window, and memory stays
+ * bounded by two generations.
+ *
+ * A lookup is two map reads. A retry that arrives while the original is
+ * still being processed waits for its result instead of counting twice.
+ *
+ * Both generations are swapped together in one volatile holder, so a claim
+ * always sees a matching pair. A claim that raced a rotation is settled
+ * again in the newer generation before it is returned as owned, so two
+ * callers can never both own the same ID.
+ */
+@Service
+public class ScanDeduplicator {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.scan.dedup.window-seconds:600}")
+    private long windowSeconds;
+
+    @Value("${app.scan.dedup.max-entries:200000}")
+    private int maxEntriesPerGeneration;
+
+    @Value("${app.scan.dedup.wait-ms:5000}")
+    private long waitMs;
+
+    private volatile Generations generations = new Generations(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), System.nanoTime());
+
+    private Counter duplicates;
+
+    @PostConstruct
+    public void init() {
+        duplicates = meterRegistry.counter("scans.duplicates");
+    }
+
+    /**
+     * Claim a scan ID before processing it
+     * The first caller owns the claim and must complete() or forget() it;
+     * every later caller (a retry, or a repeat within a batch) gets the
+     * owner's pending result to wait on instead.
+     * @param scanId Client scan ID
+     * @return The caller's own claim, or the existing one
+     */
+    public Claim claim(UUID scanId) {
+        Generations seen = rotateIfNeeded();
+        CompletableFuture<ScanResponse> fresh = new CompletableFuture<>();
+        while (true) {
+            CompletableFuture<ScanResponse> existing = seen.previous().get(scanId);
+            if (existing == null) {
+                existing = seen.current().putIfAbsent(scanId, fresh);
+            }
+            if (existing != null && existing != fresh) {
+                return duplicateOf(scanId, existing, fresh);
+            }
+            Generations now = generations;
+            if (now == seen) {
+                return new Claim(scanId, fresh, true);
+            }
+            // Rotated while claiming: a caller in the newer generation may not have seen our entry
+            seen = now;
+        }
+    }
+
+    /**
+     * Yield to another caller's claim
+     * Our own entry may already have been found by a third caller, so it
+     * mirrors the winner's result before it is dropped.
+     */
+    private Claim duplicateOf(UUID scanId, CompletableFuture<ScanResponse> existing,
+                              CompletableFuture<ScanResponse> fresh) {
+        Generations now = generations;
+        now.current().remove(scanId, fresh);
+        now.previous().remove(scanId, fresh);
+        existing.whenComplete((response, error) -> {
+            if (error != null) {
+                fresh.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else {
+                fresh.complete(response);
+            }
+        });
+        duplicates.increment();
+        return new Claim(scanId, existing, false);
+    }
+
+    /**
+     * Record the response of an owned claim; duplicates waiting on it get the same response
+     */
+    public void complete(Claim claim, ScanResponse response) {
+        claim.result().complete(response);
+    }
+
+    /**
+     * Release an owned claim whose scan was not applied, so a retry is processed again
+     */
+    public void forget(Claim claim, RuntimeException cause) {
+        Generations now = generations;
+        now.current().remove(claim.scanId(), claim.result());
+        now.previous().remove(claim.scanId(), claim.result());
+        claim.result().completeExceptionally(cause);
+    }
+
+    /**
+     * Wait for the outcome of a claim owned by someone else
+     * @throws RuntimeException if the original failed or is still running after app.scan.dedup.wait-ms
+     */
+    public ScanResponse await(Claim claim) {
+        return await(claim.result());
+    }
+
+    private ScanResponse await(CompletableFuture<ScanResponse> future) {
+        try {
+            return future.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Scan is still being processed, retry later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for original scan");
+        }
+    }
+
+    /**
+     * Non-blocking counterpart of await(Claim)
+     * The returned future is a copy: timing it out never touches the claim.
+     */
+    public CompletableFuture<ScanResponse> awaitAsync(Claim claim) {
+        return claim.result().copy()
+                .orTimeout(waitMs, TimeUnit.MILLISECONDS)
+                .exceptionallyCompose(error -> CompletableFuture.failedFuture(error instanceof TimeoutException
+                        ? new RuntimeException("Scan is still being processed, retry later")
+                        : error instanceof CompletionException && error.getCause() != null ? error.getCause() : error));
+    }
+
+    /**
+     * A scan ID's pending or finished result
+     * @param owned Whether this caller claimed the ID and must process the scan
+     */
+    public record Claim(UUID scanId, CompletableFuture<ScanResponse> result, boolean owned) {}
+
+    /**
+     * Claimed IDs: the generation being filled and the one before it
+     */
+    private record Generations(ConcurrentHashMap<UUID, CompletableFuture<ScanResponse>> current,
+                               ConcurrentHashMap<UUID, CompletableFuture<ScanResponse>> previous,
+                               long startedAt) {}
+
+    private Generations rotateIfNeeded() {
+        Generations seen = generations;
+        if (!isDue(seen)) {
+            return seen;
+        }
+        synchronized (this) {
+            seen = generations;
+            if (isDue(seen)) {
+                rotate();
+            }
+            return generations;
+        }
+    }
+
+    private boolean isDue(Generations seen) {
+        return System.nanoTime() - seen.startedAt() >= TimeUnit.SECONDS.toNanos(windowSeconds) / 2
+                || seen.current().size() >= maxEntriesPerGeneration;
+    }
+
+    /**
+     * Start a new generation; the current one becomes the previous
+     */
+    synchronized void rotate() {
+        Generations seen = generations;
+        generations = new Generations(new ConcurrentHashMap<>(), seen.current(), System.nanoTime());
+    }
+}
@@ -0,0 +1,130 @@
+package com.crowdmanagement.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Scan Dispatcher
+ * ---------------
+ * Single writer per area: scan processing for an area always runs on the
+ * same shard thread, in arrival order. Scans for one area never contend
+ * with each other (counter, alert state), while different areas scale
+ * across shards.
+ *
+ * app.scan.shards=0 runs scans inline on the calling thread.
+ */
+@Service
+public class ScanDispatcher {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.scan.shards:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int shardCount;
+
+    @Value("${app.scan.shard-queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${app.scan.dispatch-timeout-ms:10000}")
+    private long timeoutMs;
+
+    private ShardedExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        if (shardCount > 0) {
+            executor = new ShardedExecutor("scan", shardCount, queueCapacity, meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Shard that owns an area (all areas map to 0 when dispatching inline)
+     */
+    public int shardOf(Long areaId) {
+        return executor != null ? executor.shardOf(areaId) : 0;
+    }
+
+    /**
+     * Run work for an area on its shard and wait for the result
+     * @throws RejectedExecutionException if the shard queue is full
+     * @throws ScanTimeoutException if the result is not ready within app.scan.dispatch-timeout-ms
+     * @throws RuntimeException if the work fails
+     */
+    public <T> T dispatch(Long areaId, Supplier<T> work) {
+        if (executor == null) {
+            return work.get();
+        }
+        return await(submit(areaId, work));
+    }
+
+    /**
+     * Queue work for an area on its shard without waiting
+     */
+    public <T> CompletableFuture<T> submit(Long areaId, Supplier<T> work) {
+        if (executor == null) {
+            return CompletableFuture.completedFuture(work.get());
+        }
+        try {
+            return executor.submit(areaId, work);
+        } catch (RejectedExecutionException e) {
+            throw new RejectedExecutionException("Scan queue for area " + areaId + " is full, retry later");
+        }
+    }
+
+    /**
+     * Wait for dispatched work, unwrapping its exception
+     * On timeout, work still queued is cancelled; work already running
+     * carries on and completes its future.
+     * @throws ScanTimeoutException if the result is not ready in time
+     */
+    public <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            boolean cancelled = future.cancel(false);
+            throw new ScanTimeoutException("Scan processing timed out", cancelled);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for scan processing");
+        }
+    }
+
+    /**
+     * Non-blocking counterpart of await(): completes like the dispatched work,
+     * or with ScanTimeoutException after the dispatch timeout (cancelling the
+     * work if it is still queued)
+     */
+    public <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future) {
+        // The copy times out on its own; the work's future only ever completes with the work's outcome
+        return future.copy()
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionallyCompose(error -> CompletableFuture.failedFuture(error instanceof TimeoutException
+                        ? new ScanTimeoutException("Scan processing timed out", future.cancel(false))
+                        : unwrap(error)));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
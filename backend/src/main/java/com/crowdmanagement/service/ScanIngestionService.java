@@ -0,0 +1,274 @@
+package com.crowdmanagement.service;
+
+import com.crowdmanagement.dto.ScanBatchResponse;
+import com.crowdmanagement.dto.ScanRequest;
+import com.crowdmanagement.dto.ScanResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Scan Ingestion Service
+ * ----------------------
+ * Entry point for every scan, whatever transport it arrives on.
+ * Applies client scan ID deduplication in front of ScanService, so
+ * retries never reach the counter or the database, then hands the scan
+ * to the area's shard (ScanDispatcher) for in-order processing.
+ */
+@Service
+public class ScanIngestionService {
+
+    @Autowired
+    private ScanService scanService;
+
+    @Autowired
+    private ScanDeduplicator scanDeduplicator;
+
+    @Autowired
+    private ScanDispatcher scanDispatcher;
+
+    @Autowired
+    private ScanMetrics scanMetrics;
+
+    /**
+     * Ingest a single scan
+     * @param request Scan details (scanId optional)
+     * @return Scan result, or the original result for a retried scan ID
+     */
+    public ScanResponse ingest(ScanRequest request) {
+        return ingest(request, scanMetrics.start());
+    }
+
+    /**
+     * Ingest a single scan, collecting its stage breakdown
+     * @param request Scan details (scanId optional)
+     * @param timings Filled with queue/counter/log/alert/broadcast/total timings
+     * @return Scan result, or the original result for a retried scan ID
+     */
+    public ScanResponse ingest(ScanRequest request, ScanMetrics.Timings timings) {
+        UUID scanId = request.getScanId();
+        String outcome = "error";
+        try {
+            ScanDeduplicator.Claim claim = scanId != null ? scanDeduplicator.claim(scanId) : null;
+            if (claim != null && !claim.owned()) {
+                ScanResponse original = scanDeduplicator.await(claim);
+                outcome = "duplicate";
+                return original;
+            }
+
+            CompletableFuture<ScanResponse> future = dispatch(request, timings, claim);
+            ScanResponse response = scanDispatcher.await(future);
+            outcome = "success";
+            return response;
+        } catch (RejectedExecutionException e) {
+            outcome = "rejected";
+            throw e;
+        } catch (ScanTimeoutException e) {
+            outcome = "timeout";
+            throw e;
+        } finally {
+            timings.finish();
+            scanMetrics.recordOutcome(request.getScanType(), outcome);
+        }
+    }
+
+    /**
+     * Ingest a single scan without blocking the caller (STOMP inbound threads)
+     * @param request Scan details (scanId optional)
+     * @return Completes with the scan result (or the original result for a retried
+     *         scan ID), or exceptionally with RejectedExecutionException,
+     *         ScanTimeoutException or the processing error
+     */
+    public CompletableFuture<ScanResponse> ingestAsync(ScanRequest request) {
+        ScanMetrics.Timings timings = scanMetrics.start();
+        UUID scanId = request.getScanId();
+        ScanDeduplicator.Claim claim = scanId != null ? scanDeduplicator.claim(scanId) : null;
+        boolean duplicate = claim != null && !claim.owned();
+        CompletableFuture<ScanResponse> result = duplicate
+                ? scanDeduplicator.awaitAsync(claim)
+                : scanDispatcher.withTimeout(dispatch(request, timings, claim));
+        return result.whenComplete((response, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            String outcome = cause == null ? (duplicate ? "duplicate" : "success")
+                    : cause instanceof RejectedExecutionException ? "rejected"
+                    : cause instanceof ScanTimeoutException ? "timeout" : "error";
+            timings.finish();
+            scanMetrics.recordOutcome(request.getScanType(), outcome);
+        });
+    }
+
+    /**
+     * Queue a claimed (or unidentified) scan on its area's shard
+     * The claim is settled by the shard, so a caller that stops waiting
+     * leaves it pending while the scan still runs.
+     * @return The shard's future; a rejected submit comes back as a failed future
+     */
+    private CompletableFuture<ScanResponse> dispatch(ScanRequest request, ScanMetrics.Timings timings,
+                                                     ScanDeduplicator.Claim claim) {
+        long enqueuedAt = System.nanoTime();
+        CompletableFuture<ScanResponse> future;
+        try {
+            future = scanDispatcher.submit(request.getAreaId(), () -> {
+                timings.record(ScanMetrics.QUEUE, System.nanoTime() - enqueuedAt);
+                ScanResponse fresh = scanService.processScan(request, timings);
+                fresh.setScanId(request.getScanId());
+                return fresh;
+            });
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        if (claim != null) {
+            future.whenComplete((response, error) -> {
+                if (error == null) {
+                    scanDeduplicator.complete(claim, response);
+                } else {
+                    scanDeduplicator.forget(claim, error instanceof RuntimeException re ? re : new RuntimeException(error));
+                }
+            });
+        }
+        return future;
+    }
+
+    /**
+     * Ingest a batch of buffered scans
+     * Every scan ID is claimed before dispatch. Items whose ID was already
+     * processed, is in flight elsewhere, or repeats within the batch are
+     * answered from the original's result and not applied again.
+     * @param requests Scans with optional device timestamps and scan IDs
+     * @return Per-item results in submission order
+     */
+    public ScanBatchResponse ingestBatch(List<ScanRequest> requests) {
+        return ingestBatch(requests, scanMetrics.start());
+    }
+
+    /**
+     * Ingest a batch of buffered scans, collecting the stage breakdown summed over sub-batches
+     */
+    public ScanBatchResponse ingestBatch(List<ScanRequest> requests, ScanMetrics.Timings timings) {
+        try {
+            ScanBatchResponse response = ingestBatchTimed(requests, timings);
+            for (int i = 0; i < requests.size(); i++) {
+                ScanBatchResponse.ItemResult result = response.getResults().get(i);
+                scanMetrics.recordOutcome(requests.get(i).getScanType(), result.isSuccess() ? "success" : "error");
+            }
+            return response;
+        } finally {
+            timings.finish();
+        }
+    }
+
+    private ScanBatchResponse ingestBatchTimed(List<ScanRequest> requests, ScanMetrics.Timings timings) {
+        ScanBatchResponse.ItemResult[] results = new ScanBatchResponse.ItemResult[requests.size()];
+        ScanDeduplicator.Claim[] claims = new ScanDeduplicator.Claim[requests.size()];
+        List<Integer> fresh = new ArrayList<>();
+        List<Integer> duplicates = new ArrayList<>();
+
+        // Claim every scan ID up front, so a retry overlapping this batch waits for it instead of counting twice
+        for (int i = 0; i < requests.size(); i++) {
+            UUID scanId = requests.get(i).getScanId();
+            if (scanId != null) {
+                claims[i] = scanDeduplicator.claim(scanId);
+                if (!claims[i].owned()) {
+                    duplicates.add(i);
+                    continue;
+                }
+            }
+            fresh.add(i);
+        }
+
+        // Split the batch by shard so each area is still written only by its own shard
+        Map<Integer, List<Integer>> byShard = new TreeMap<>();
+        for (int i : fresh) {
+            byShard.computeIfAbsent(scanDispatcher.shardOf(requests.get(i).getAreaId()), s -> new ArrayList<>()).add(i);
+        }
+
+        List<List<Integer>> groups = new ArrayList<>(byShard.values());
+        List<CompletableFuture<ScanBatchResponse>> pending = new ArrayList<>();
+        // Sub-batches run concurrently on different shards: each gets its own breakdown, merged below
+        List<ScanMetrics.Timings> shardTimings = new ArrayList<>();
+        RuntimeException failure = null;
+        for (List<Integer> group : groups) {
+            List<ScanRequest> subBatch = group.stream().map(requests::get).toList();
+            Long shardKey = subBatch.get(0).getAreaId();
+            ScanMetrics.Timings subTimings = scanMetrics.start();
+            shardTimings.add(subTimings);
+            long enqueuedAt = System.nanoTime();
+            CompletableFuture<ScanBatchResponse> future;
+            try {
+                future = scanDispatcher.submit(shardKey, () -> {
+                    subTimings.record(ScanMetrics.QUEUE, System.nanoTime() - enqueuedAt);
+                    return scanService.processBatch(subBatch, subTimings);
+                });
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+                failure = failure != null ? failure : e;
+            }
+            // Settle the claims when the shard finishes, even if this request stopped waiting for it
+            future.whenComplete((batch, error) -> settleClaims(group, claims, batch, error));
+            pending.add(future);
+        }
+
+        for (int g = 0; g < groups.size(); g++) {
+            List<Integer> group = groups.get(g);
+            List<ScanBatchResponse.ItemResult> processed;
+            try {
+                processed = scanDispatcher.await(pending.get(g)).getResults();
+            } catch (RuntimeException e) {
+                failure = failure != null ? failure : e;
+                continue;
+            }
+            timings.merge(shardTimings.get(g));
+            for (int j = 0; j < processed.size(); j++) {
+                int index = group.get(j);
+                ScanBatchResponse.ItemResult result = processed.get(j);
+                result.setIndex(index);
+                results[index] = result;
+            }
+        }
+        if (failure != null) {
+            // Items already applied are answered from their claims when the client retries the batch
+            throw failure;
+        }
+
+        for (int i : duplicates) {
+            try {
+                ScanResponse original = scanDeduplicator.await(claims[i]);
+                results[i] = ScanBatchResponse.ItemResult.success(i, original.getAreaId(), original.getAreaName(),
+                        original.getScanType(), original.getTimestamp(), original.getNewCount());
+            } catch (RuntimeException e) {
+                results[i] = ScanBatchResponse.ItemResult.failure(i, requests.get(i).getAreaId(), e.getMessage());
+            }
+        }
+
+        return new ScanBatchResponse(List.of(results));
+    }
+
+    /**
+     * Complete the claims of a processed sub-batch, or forget those whose scan was not applied
+     */
+    private void settleClaims(List<Integer> group, ScanDeduplicator.Claim[] claims,
+                              ScanBatchResponse batch, Throwable error) {
+        for (int j = 0; j < group.size(); j++) {
+            ScanDeduplicator.Claim claim = claims[group.get(j)];
+            if (claim == null) {
+                continue;
+            }
+            ScanBatchResponse.ItemResult result = batch != null ? batch.getResults().get(j) : null;
+            if (result != null && result.isSuccess()) {
+                scanDeduplicator.complete(claim, new ScanResponse(null, result.getAreaId(), result.getAreaName(),
+                        result.getScanType(), result.getTimestamp(), result.getNewCount()));
+            } else {
+                String reason = result != null ? result.getError() : error.getMessage();
+                scanDeduplicator.forget(claim, new RuntimeException(reason));
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.crowdmanagement.service;
+
+import com.crowdmanagement.entity.ScanType;
+import com.crowdmanagement.repository.ScanCommitRepository;
+import com.crowdmanagement.repository.ScanCommitRepository.ScanLogRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Scan Log Writer
+ * ---------------
+ * Takes scan log persistence off the request path.
+ * Scans are queued in a bounded ring buffer and a single writer thread
+ * inserts them in JDBC batches of up to batch-size rows.
+ *
+ * If the buffer is full the caller writes its row synchronously, so a
+ * burst slows down instead of losing logs. Callers must not hold a
+ * transaction: an inline row would join it, and on PostgreSQL one failed
+ * insert aborts it, so the retries below could only fail again.
+ * ScanService calls it from the in-memory scan path, which runs outside
+ * a transaction; it is the only user, so the writer only matters with
+ * app.occupancy.in-memory=true. On shutdown the writer drains
+ * the buffer before the application context closes; a row written
+ * concurrently with shutdown is either queued before the writer stops
+ * accepting rows (and drained) or written inline.
+ *
+ * A batch that still fails after retries is written row by row, so one
+ * bad row does not lose the others. write() never throws: a row that
+ * cannot be written on its own is logged and counted as failed.
+ *
+ * Metrics: scanlog.queue.depth, scanlog.flush (latency + batch count),
+ * scanlog.rows.written, scanlog.rows.failed
+ */
+@Service
+public class ScanLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanLogWriter.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private ScanCommitRepository scanCommitRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.scan-log.async:true}")
+    private boolean async;
+
+    @Value("${app.scan-log.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.scan-log.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.scan-log.max-wait-ms:50}")
+    private long maxWaitMs;
+
+    private BlockingQueue<ScanLogRow> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+    // Offers hold the read lock, stopping takes the write lock: no row is queued after the writer stops
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+
+    private Timer flushTimer;
+    private Counter rowsWritten;
+    private Counter rowsFailed;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        flushTimer = Timer.builder("scanlog.flush")
+                .description("Latency of one scan log batch insert")
+                .register(meterRegistry);
+        rowsWritten = meterRegistry.counter("scanlog.rows.written");
+        rowsFailed = meterRegistry.counter("scanlog.rows.failed");
+        Gauge.builder("scanlog.queue.depth", queue, BlockingQueue::size)
+                .description("Scan logs waiting to be written")
+                .register(meterRegistry);
+
+        if (async) {
+            running = true;
+            writerThread = new Thread(this::runWriter, "scanlog-writer");
+            writerThread.start();
+        }
+    }
+
+    /**
+     * Drain everything still buffered before the datasource goes away
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopAccepting();
+        if (writerThread != null) {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+            if (writerThread.isAlive()) {
+                log.warn("Scan log writer did not drain in time, {} rows left", queue.size());
+            }
+        }
+    }
+
+    /**
+     * Record a scan
+     * @return Generated scan log ID when written synchronously, null when queued (or failed)
+     */
+    public Long write(Long areaId, ScanType scanType, LocalDateTime timestamp) {
+        ScanLogRow row = new ScanLogRow(areaId, scanType, timestamp);
+        if (!async) {
+            return writeRow(row);
+        }
+        boolean queued;
+        acceptLock.readLock().lock();
+        try {
+            queued = running && queue.offer(row);
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+        if (!queued) {
+            // Buffer full (or shutting down): write inline rather than drop the log
+            writeBatch(List.of(row));
+        }
+        return null;
+    }
+
+    private void stopAccepting() {
+        acceptLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+    }
+
+    private void runWriter() {
+        List<ScanLogRow> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ScanLogRow first = queue.poll(maxWaitMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                // Stop accepting new work but keep draining what is buffered
+                stopAccepting();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<ScanLogRow> batch) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                flushTimer.record(() -> scanCommitRepository.insertScanLogs(batch));
+                rowsWritten.increment(batch.size());
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Scan log batch of {} rows failed (attempt {}/{}): {}",
+                        batch.size(), attempt, MAX_ATTEMPTS, e.getMessage());
+            }
+        }
+        // Keeps failing as a whole (e.g. one bad row): write row by row so only bad rows are lost
+        log.warn("Scan log batch of {} rows failed {} times, writing rows one by one", batch.size(), MAX_ATTEMPTS);
+        for (ScanLogRow row : batch) {
+            writeRow(row);
+        }
+    }
+
+    /**
+     * Insert one row
+     * @return Generated scan log ID, or null if the row failed
+     */
+    private Long writeRow(ScanLogRow row) {
+        try {
+            Long id = scanCommitRepository.insertScanLog(row.areaId(), row.scanType(), row.timestamp());
+            rowsWritten.increment();
+            return id;
+        } catch (RuntimeException e) {
+            rowsFailed.increment();
+            log.error("Scan log row lost (area {}, {} at {}): {}", row.areaId(), row.scanType(), row.timestamp(),
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,153 @@
+package com.crowdmanagement.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Scan Metrics
+ * ------------
+ * Per-stage latency of the scan pipeline and scan outcomes.
+ *
+ * scan.stage{stage}             - histogram (p50/p95/p99/max) per stage:
+ *                                 queue, counter, log, alert, broadcast, total
+ * scans.processed{type,outcome} - scans by ENTRY/EXIT and outcome
+ *                                 (success, duplicate, rejected, timeout, error)
+ *
+ * No tag carries an area: areas are created by users, so one series per
+ * area would grow without bound. Per-area counts live in the database.
+ *
+ * A Timings object collects one request's breakdown while also feeding the
+ * shared timers, so it can be returned as a Server-Timing header.
+ */
+@Service
+public class ScanMetrics {
+
+    public static final String QUEUE = "queue";
+    public static final String COUNTER = "counter";
+    public static final String LOG = "log";
+    public static final String ALERT = "alert";
+    public static final String BROADCAST = "broadcast";
+    public static final String TOTAL = "total";
+
+    private static final List<String> STAGES = List.of(QUEUE, COUNTER, LOG, ALERT, BROADCAST, TOTAL);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+
+    /**
+     * Start timing one request (or one batch)
+     */
+    public Timings start() {
+        return new Timings();
+    }
+
+    /**
+     * Count a finished scan
+     * @param outcome success, duplicate, rejected, timeout or error
+     */
+    public void recordOutcome(Object scanType, String outcome) {
+        meterRegistry.counter("scans.processed",
+                "type", scanType != null ? scanType.toString() : "none",
+                "outcome", outcome).increment();
+    }
+
+    private Timer stageTimer(String stage) {
+        return stageTimers.computeIfAbsent(stage, s -> Timer.builder("scan.stage")
+                .description("Latency of one scan pipeline stage")
+                .tag("stage", s)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * Stage breakdown of one request. The shard thread may still be recording
+     * stages when the caller gives up waiting and finishes the request, so
+     * each stage is a concurrent sum.
+     */
+    public class Timings {
+        private final long startedAt = System.nanoTime();
+        private final Map<String, LongAdder> stages = new ConcurrentHashMap<>();
+
+        /**
+         * Time a stage that returns a value
+         */
+        public <T> T time(String stage, Supplier<T> work) {
+            long start = System.nanoTime();
+            try {
+                return work.get();
+            } finally {
+                record(stage, System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Time a stage without a result
+         */
+        public void time(String stage, Runnable work) {
+            long start = System.nanoTime();
+            try {
+                work.run();
+            } finally {
+                record(stage, System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Record an already measured stage
+         */
+        public void record(String stage, long nanos) {
+            stageTimer(stage).record(nanos, TimeUnit.NANOSECONDS);
+            add(stage, nanos);
+        }
+
+        private void add(String stage, long nanos) {
+            stages.computeIfAbsent(stage, s -> new LongAdder()).add(nanos);
+        }
+
+        /**
+         * Add another breakdown (a sub-batch that ran on another shard) without re-recording it
+         */
+        public void merge(Timings other) {
+            other.stages.forEach((stage, nanos) -> add(stage, nanos.sum()));
+        }
+
+        /**
+         * Close the request: records the total stage
+         */
+        public void finish() {
+            record(TOTAL, System.nanoTime() - startedAt);
+        }
+
+        /**
+         * Breakdown as a Server-Timing header value (milliseconds), in pipeline order
+         */
+        public String toServerTiming() {
+            StringBuilder header = new StringBuilder();
+            for (String stage : STAGES) {
+                LongAdder nanos = stages.get(stage);
+                if (nanos == null) {
+                    continue;
+                }
+                if (header.length() > 0) {
+                    header.append(", ");
+                }
+                header.append(stage).append(";dur=")
+                        .append(String.format(Locale.ROOT, "%.3f", nanos.sum() / 1_000_000.0));
+            }
+            return header.toString();
+        }
+    }
+}
@@ -1,21 +1,36 @@
 package com.crowdmanagement.service;
 
+import com.crowdmanagement.dto.ScanBatchResponse;
 import com.crowdmanagement.dto.ScanRequest;
 import com.crowdmanagement.dto.ScanResponse;
 import com.crowdmanagement.dto.AreaResponse;
 import com.crowdmanagement.entity.Area;
+import com.crowdmanagement.entity.Event;
 import com.crowdmanagement.entity.ScanLog;
 import com.crowdmanagement.entity.ScanType;
+import com.crowdmanagement.repository.AreaRepository;
+import com.crowdmanagement.repository.EventRepository;
+import com.crowdmanagement.repository.ScanCommitRepository;
+import com.crowdmanagement.repository.ScanCommitRepository.CommittedScan;
+import com.crowdmanagement.repository.ScanCommitRepository.ScanLogRow;
 import com.crowdmanagement.repository.ScanLogRepository;
+import com.crowdmanagement.service.OccupancyStore.CountChange;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -29,51 +44,269 @@ public class ScanService {
     @Autowired
     private ScanLogRepository scanLogRepository;
 
+    @Autowired
+    private ScanCommitRepository scanCommitRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private AreaRepository areaRepository;
+
     @Autowired
     private AreaService areaService;
 
     @Autowired
-    private WebSocketService webSocketService;
+    private AreaBroadcastCoalescer areaBroadcastCoalescer;
+
+    @Autowired
+    private AlertPipeline alertPipeline;
 
     @Autowired
-    private AlertService alertService;
+    private OccupancyStore occupancyStore;
+
+    @Autowired
+    private InflowForecaster inflowForecaster;
+
+    @Autowired
+    private ScanLogWriter scanLogWriter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Commit counter update + scan log in a single round trip (see ScanCommitRepository)
+    @Value("${app.scan.single-round-trip:true}")
+    private boolean singleRoundTrip;
+
+    // Upper bound on scans accepted by one /api/scans/batch call
+    @Value("${app.scan.batch.max-size:1000}")
+    private int maxBatchSize;
 
     /**
      * Process a QR code scan (entry or exit)
+     * The in-memory path runs no SQL of its own (its log row goes through
+     * ScanLogWriter), so it runs outside a transaction: a row the writer
+     * has to insert inline can neither join nor abort a scan transaction.
      * @param request Scan details
+     * @param timings Stage breakdown for this request
      * @return Scan result with updated count
      */
-    @Transactional
-    public ScanResponse processScan(ScanRequest request) {
+    public ScanResponse processScan(ScanRequest request, ScanMetrics.Timings timings) {
+        if (occupancyStore.isEnabled()) {
+            return processScanInMemory(request, timings);
+        }
+        return transactionTemplate.execute(status -> singleRoundTrip
+                ? processScanSingleRoundTrip(request, timings)
+                : processScanWithEntities(request, timings));
+    }
+
+    /**
+     * Scan path through the JPA entities (app.scan.single-round-trip=false)
+     */
+    private ScanResponse processScanWithEntities(ScanRequest request, ScanMetrics.Timings timings) {
         // Get the area
         Area area = areaService.getAreaEntityById(request.getAreaId());
+        int previousCount = area.getCurrentCount();
 
         // Update the count based on scan type
-        Integer newCount;
-        if (request.getScanType() == ScanType.ENTRY) {
-            newCount = areaService.incrementCount(request.getAreaId());
-        } else {
-            newCount = areaService.decrementCount(request.getAreaId());
-        }
+        Integer newCount = timings.time(ScanMetrics.COUNTER, () -> request.getScanType() == ScanType.ENTRY
+                ? areaService.incrementCount(request.getAreaId())
+                : areaService.decrementCount(request.getAreaId()));
 
         // Create scan log
-        ScanLog scanLog = new ScanLog(area, request.getScanType());
-        scanLog = scanLogRepository.save(scanLog);
+        ScanLog scanLog = timings.time(ScanMetrics.LOG,
+                () -> scanLogRepository.save(new ScanLog(area, request.getScanType())));
 
         // Refresh area entity to get updated count
-        area = areaService.getAreaEntityById(request.getAreaId());
+        Area updated = areaService.getAreaEntityById(request.getAreaId());
 
-        // Check and generate alerts if thresholds are breached
-        alertService.checkAndGenerateAlert(area, request.getScanType());
+        // Publish the change to the alert pipeline (only threshold crossings are queued)
+        timings.time(ScanMetrics.ALERT, () -> alertPipeline.publish(updated, previousCount, request.getScanType()));
 
-        // Broadcast real-time update via WebSocket
-        AreaResponse updatedArea = areaService.getAreaByIdPublic(request.getAreaId());
-        webSocketService.broadcastAreaUpdate(updatedArea);
-        webSocketService.broadcastScanEvent(request.getAreaId(), request.getScanType().name(), newCount);
+        // Broadcast real-time update via WebSocket (coalesced per tick)
+        timings.time(ScanMetrics.BROADCAST, () -> areaBroadcastCoalescer.publish(
+                areaService.getAreaByIdPublic(request.getAreaId()), previousCount, request.getScanType().name()));
 
         return ScanResponse.fromEntity(scanLog, newCount);
     }
 
+    /**
+     * Scan path with the in-memory occupancy store as source of truth.
+     * The counter is a CAS on the area's state and the scan log is handed to the
+     * batched ScanLogWriter, so no SQL runs here unless an alert fires.
+     * The response ID is null when the log is queued rather than written inline.
+     */
+    private ScanResponse processScanInMemory(ScanRequest request, ScanMetrics.Timings timings) {
+        LocalDateTime now = LocalDateTime.now();
+        int delta = request.getScanType() == ScanType.ENTRY ? 1 : -1;
+
+        OccupancyStore.AreaState state = occupancyStore.getState(request.getAreaId());
+        CountChange change = timings.time(ScanMetrics.COUNTER, () -> occupancyStore.apply(request.getAreaId(), delta));
+
+        // Never throws: a log row that cannot be written is counted in scanlog.rows.failed
+        Long scanLogId = timings.time(ScanMetrics.LOG,
+                () -> scanLogWriter.write(request.getAreaId(), request.getScanType(), now));
+
+        Long eventId = state.getConfig().eventId();
+        Event event = eventId != null ? eventRepository.getReferenceById(eventId) : null;
+        Area area = state.toArea(event, change.current());
+
+        // Publish the change to the alert pipeline (only threshold crossings are queued)
+        timings.time(ScanMetrics.ALERT,
+                () -> alertPipeline.publish(area, change.previous(), request.getScanType()));
+
+        // Broadcast real-time update via WebSocket (coalesced per tick)
+        timings.time(ScanMetrics.BROADCAST, () -> areaBroadcastCoalescer.publish(
+                inflowForecaster.annotate(AreaResponse.fromEntity(area)), change.previous(), request.getScanType().name()));
+
+        return new ScanResponse(scanLogId, area.getId(), area.getName(), request.getScanType(), now, change.current());
+    }
+
+    /**
+     * Scan commit path that updates the counter and inserts the log in one statement.
+     * The RETURNING row already carries the new count and thresholds, so the area
+     * is never re-read for alert checks or the broadcast.
+     */
+    private ScanResponse processScanSingleRoundTrip(ScanRequest request, ScanMetrics.Timings timings) {
+        // Counter and log are one statement here, so the stage is reported as "counter"
+        CommittedScan committed = timings.time(ScanMetrics.COUNTER, () -> scanCommitRepository.commitScan(
+                request.getAreaId(), request.getScanType(), LocalDateTime.now()));
+
+        Event event = committed.eventId() != null ? eventRepository.getReferenceById(committed.eventId()) : null;
+        Area area = committed.toArea(event);
+
+        // Publish the change to the alert pipeline (only threshold crossings are queued).
+        // The previous count is derived; an exit floored at zero may look like 1 -> 0.
+        int previousCount = committed.newCount() - (request.getScanType() == ScanType.ENTRY ? 1 : -1);
+        timings.time(ScanMetrics.ALERT,
+                () -> alertPipeline.publish(area, previousCount, request.getScanType()));
+
+        // Broadcast real-time update via WebSocket (coalesced per tick)
+        timings.time(ScanMetrics.BROADCAST, () -> areaBroadcastCoalescer.publish(
+                inflowForecaster.annotate(AreaResponse.fromEntity(area)), previousCount, request.getScanType().name()));
+
+        return new ScanResponse(committed.scanLogId(), area.getId(), area.getName(), request.getScanType(),
+                committed.timestamp(), committed.newCount());
+    }
+
+    /**
+     * Process a batch of buffered scans (device replay after reconnect)
+     * Scans are grouped by area and applied in device-time order. Each area
+     * gets one counter update, the whole batch one multi-row log insert, and
+     * alerts and broadcasts run once per area for its final count.
+     * @param requests Scans with optional device timestamps
+     * @param timings Stage breakdown for this batch
+     * @return Per-item results in submission order
+     */
+    @Transactional
+    public ScanBatchResponse processBatch(List<ScanRequest> requests, ScanMetrics.Timings timings) {
+        if (requests.size() > maxBatchSize) {
+            throw new RuntimeException("Batch too large: " + requests.size() + " scans (max " + maxBatchSize + ")");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        ScanBatchResponse.ItemResult[] results = new ScanBatchResponse.ItemResult[requests.size()];
+        Map<Long, List<Integer>> indexesByArea = new LinkedHashMap<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            ScanRequest request = requests.get(i);
+            if (request.getAreaId() == null || request.getScanType() == null) {
+                results[i] = ScanBatchResponse.ItemResult.failure(i, request.getAreaId(), "areaId and scanType are required");
+                continue;
+            }
+            indexesByArea.computeIfAbsent(request.getAreaId(), id -> new ArrayList<>()).add(i);
+        }
+
+        // Without the in-memory store, lock every touched row up front in one query
+        Map<Long, Area> lockedAreas = new HashMap<>();
+        if (!occupancyStore.isEnabled() && !indexesByArea.isEmpty()) {
+            for (Area area : areaRepository.findAllByIdForUpdate(indexesByArea.keySet())) {
+                lockedAreas.put(area.getId(), area);
+            }
+        }
+
+        List<ScanLogRow> rows = new ArrayList<>();
+        Map<Long, Integer> appliedDeltas = new HashMap<>();
+        List<Area> touchedAreas = new ArrayList<>();
+        Map<Long, Integer> previousCounts = new HashMap<>();
+
+        for (Map.Entry<Long, List<Integer>> entry : indexesByArea.entrySet()) {
+            Long areaId = entry.getKey();
+            List<Integer> indexes = entry.getValue();
+            indexes.sort(Comparator.comparing(i -> timestampOf(requests.get(i), now)));
+
+            int[] deltas = new int[indexes.size()];
+            for (int k = 0; k < indexes.size(); k++) {
+                deltas[k] = requests.get(indexes.get(k)).getScanType() == ScanType.ENTRY ? 1 : -1;
+            }
+
+            Area area;
+            int previous;
+            try {
+                if (occupancyStore.isEnabled()) {
+                    OccupancyStore.AreaState state = occupancyStore.getState(areaId);
+                    CountChange change = timings.time(ScanMetrics.COUNTER, () -> occupancyStore.applyAll(areaId, deltas));
+                    appliedDeltas.put(areaId, change.current() - change.previous());
+                    Long eventId = state.getConfig().eventId();
+                    area = state.toArea(eventId != null ? eventRepository.getReferenceById(eventId) : null,
+                            change.current());
+                    previous = change.previous();
+                } else {
+                    area = lockedAreas.get(areaId);
+                    if (area == null) {
+                        throw new RuntimeException("Area not found with id: " + areaId);
+                    }
+                    previous = area.getCurrentCount();
+                }
+            } catch (RuntimeException e) {
+                for (Integer index : indexes) {
+                    results[index] = ScanBatchResponse.ItemResult.failure(index, areaId, e.getMessage());
+                }
+                continue;
+            }
+
+            int[] counts = OccupancyStore.runningCounts(previous, deltas);
+            for (int k = 0; k < indexes.size(); k++) {
+                int index = indexes.get(k);
+                ScanRequest request = requests.get(index);
+                LocalDateTime timestamp = timestampOf(request, now);
+                rows.add(new ScanLogRow(areaId, request.getScanType(), timestamp));
+                results[index] = ScanBatchResponse.ItemResult.success(index, areaId, area.getName(),
+                        request.getScanType(), timestamp, counts[k]);
+            }
+            // Managed entity: a single UPDATE per area at flush
+            area.setCurrentCount(counts[counts.length - 1]);
+            touchedAreas.add(area);
+            previousCounts.put(areaId, previous);
+        }
+
+        if (!rows.isEmpty()) {
+            try {
+                timings.time(ScanMetrics.LOG, () -> scanCommitRepository.insertScanLogs(rows));
+            } catch (RuntimeException e) {
+                // The transaction rolls back the row updates; undo the in-memory counters too.
+                // A net undo is exact unless the count was floored at zero mid-batch.
+                appliedDeltas.forEach((areaId, delta) -> occupancyStore.apply(areaId, -delta));
+                throw e;
+            }
+        }
+
+        for (Area area : touchedAreas) {
+            // Evaluate once per area on the batch's net transition
+            int previous = previousCounts.get(area.getId());
+            ScanType evaluation = area.getCurrentCount() >= previous ? ScanType.ENTRY : ScanType.EXIT;
+            timings.time(ScanMetrics.ALERT, () -> alertPipeline.publish(area, previous, evaluation));
+            timings.time(ScanMetrics.BROADCAST, () -> areaBroadcastCoalescer.publish(
+                    inflowForecaster.annotate(AreaResponse.fromEntity(area)), previous, evaluation.name()));
+        }
+
+        return new ScanBatchResponse(Arrays.asList(results));
+    }
+
+    private static LocalDateTime timestampOf(ScanRequest request, LocalDateTime fallback) {
+        return request.getTimestamp() != null ? request.getTimestamp() : fallback;
+    }
+
     /**
      * Get recent scan logs
      * @param limit Number of logs to return
@@ -82,7 +315,7 @@ public class ScanService {
     public List<ScanResponse> getRecentScans(int limit) {
         return scanLogRepository.findRecentScans(limit)
                 .stream()
-                .map(log -> ScanResponse.fromEntity(log, log.getArea().getCurrentCount()))
+                .map(log -> ScanResponse.fromEntity(log, occupancyStore.currentCount(log.getArea())))
                 .collect(Collectors.toList());
     }
 
@@ -94,7 +327,7 @@ public class ScanService {
     public List<ScanResponse> getScansByArea(Long areaId) {
         return scanLogRepository.findByAreaIdOrderByTimestampDesc(areaId)
                 .stream()
-                .map(log -> ScanResponse.fromEntity(log, log.getArea().getCurrentCount()))
+                .map(log -> ScanResponse.fromEntity(log, occupancyStore.currentCount(log.getArea())))
                 .collect(Collectors.toList());
     }
 
@@ -108,7 +341,7 @@ public class ScanService {
 
         return scanLogRepository.findByTimestampBetweenOrderByTimestampDesc(startOfDay, endOfDay)
                 .stream()
-                .map(log -> ScanResponse.fromEntity(log, log.getArea().getCurrentCount()))
+                .map(log -> ScanResponse.fromEntity(log, occupancyStore.currentCount(log.getArea())))
                 .collect(Collectors.toList());
     }
 
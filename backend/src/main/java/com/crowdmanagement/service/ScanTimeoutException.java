@@ -0,0 +1,29 @@
+package com.crowdmanagement.service;
+
+/**
+ * Scan Timeout Exception
+ * ----------------------
+ * Thrown when a caller stops waiting for dispatched scan work.
+ * If the work had not started it was cancelled and will never run;
+ * otherwise it is still running and its result lands in the dedup claim,
+ * so a retry of the same scan ID is answered from it rather than applied
+ * again.
+ */
+public class ScanTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean cancelled;
+
+    public ScanTimeoutException(String message, boolean cancelled) {
+        super(message);
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Whether the work was cancelled before it started
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
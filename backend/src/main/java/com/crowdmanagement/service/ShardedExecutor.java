@@ -0,0 +1,135 @@
+package com.crowdmanagement.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sharded Executor
+ * ----------------
+ * N single-threaded executors with bounded queues. A key (area id) always
+ * hashes to the same shard, so all work for that key runs in submission
+ * order on one thread, while different keys spread across shards.
+ *
+ * Metrics (tagged with the executor name and shard):
+ * {name}.shard.queue.depth - tasks waiting per shard
+ * {name}.shard.latency     - time from submit to completion per shard
+ * {name}.shard.rejected    - tasks refused because the shard queue was full
+ */
+public class ShardedExecutor {
+
+    private final String name;
+    private final ThreadPoolExecutor[] shards;
+    private final Timer[] latencies;
+    private final MeterRegistry meterRegistry;
+
+    public ShardedExecutor(String name, int shardCount, int queueCapacity, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.meterRegistry = meterRegistry;
+        this.shards = new ThreadPoolExecutor[shardCount];
+        this.latencies = new Timer[shardCount];
+
+        for (int i = 0; i < shardCount; i++) {
+            String shard = String.valueOf(i);
+            AtomicInteger threads = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    r -> {
+                        Thread thread = new Thread(r, name + "-shard-" + shard + "-" + threads.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            shards[i] = executor;
+            latencies[i] = Timer.builder(name + ".shard.latency")
+                    .tag("shard", shard)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+            Gauge.builder(name + ".shard.queue.depth", executor, e -> e.getQueue().size())
+                    .tag("shard", shard)
+                    .register(meterRegistry);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Shard index for a key
+     */
+    public int shardOf(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        // Spread the bits so sequential ids do not all land on neighbouring shards
+        h ^= (h >>> 16);
+        return Math.floorMod(h, shards.length);
+    }
+
+    /**
+     * Run a task on the shard owning the key
+     * cancel() on the returned future only succeeds while the task is still
+     * queued; once it runs, it always completes with the task's outcome.
+     * @throws RejectedExecutionException if the shard queue is full
+     */
+    public <T> CompletableFuture<T> submit(Object key, Supplier<T> task) {
+        int shard = shardOf(key);
+        ShardFuture<T> future = new ShardFuture<>();
+        try {
+            shards[shard].execute(wrap(shard, task, future));
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter(name + ".shard.rejected", "shard", String.valueOf(shard)).increment();
+            throw e;
+        }
+        return future;
+    }
+
+    private <T> Runnable wrap(int shard, Supplier<T> task, ShardFuture<T> future) {
+        long enqueuedAt = System.nanoTime();
+        return () -> {
+            if (!future.started.compareAndSet(false, true)) {
+                // Cancelled while queued
+                return;
+            }
+            try {
+                future.complete(task.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                latencies[shard].record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    /**
+     * Stop accepting work and let queued tasks finish
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        for (ThreadPoolExecutor shard : shards) {
+            shard.shutdown();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ThreadPoolExecutor shard : shards) {
+            shard.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Future of a queued task that can be cancelled only before the task starts
+     */
+    private static class ShardFuture<T> extends CompletableFuture<T> {
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return started.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+        }
+    }
+}
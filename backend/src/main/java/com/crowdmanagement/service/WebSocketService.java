@@ -2,16 +2,45 @@ package com.crowdmanagement.service;
 
 import com.crowdmanagement.dto.AlertResponse;
 import com.crowdmanagement.dto.AreaResponse;
+import com.crowdmanagement.entity.AlertType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * WebSocket Service
  * -----------------
  * Broadcasts real-time updates to connected clients.
+ *
+ * Every live topic is scoped to a tenant, so broker fan-out follows a
+ * tenant's own viewers rather than total platform traffic:
+ * /topic/owner/{ownerEmail}/...  - everything of one owner
+ * /topic/event/{eventId}/...     - the areas of one event
+ * /topic/area/{areaId}, /topic/alerts/{areaId} - one area
+ * Subscriptions are authorized by SubscriptionAuthorizationInterceptor.
+ *
+ * Live area updates come in three formats; a client picks one by the
+ * topic suffix it subscribes to:
+ * .../areas            - full AreaResponse array per tick
+ * .../areas/delta      - compact AreaDelta array per tick (JSON)
+ * .../areas/delta-bin  - the same deltas in a fixed binary layout
+ *                        (app.websocket.delta.binary=true); native
+ *                        WebSocket clients only (/ws/scanner), since
+ *                        SockJS (/ws) carries every frame as text and
+ *                        would mangle bytes >= 0x80
+ * Delta clients take full area state from the REST API and from
+ * /topic/owner/{ownerEmail}/areas/config, which carries an area whenever
+ * its configuration (name, capacity, threshold) or count is changed
+ * outside a scan.
  */
 @Service
 public class WebSocketService {
@@ -19,45 +48,168 @@ public class WebSocketService {
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Value("${app.websocket.delta.binary:false}")
+    private boolean binaryDeltas;
+
+    // Binary delta layout, big-endian: id (int64), seq (int64), count (int32), status (int8)
+    public static final int BINARY_DELTA_SIZE = 21;
+
+    private static final Map<String, Object> OCTET_STREAM =
+            Map.of(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_OCTET_STREAM);
+
+    /**
+     * Topic prefix of one owner
+     */
+    public static String ownerTopic(String ownerEmail) {
+        return "/topic/owner/" + ownerEmail;
+    }
+
+    /**
+     * Topic prefix of one event
+     */
+    public static String eventTopic(Long eventId) {
+        return "/topic/event/" + eventId;
+    }
+
+    /**
+     * Broadcast a batch of area updates (see AreaBroadcastCoalescer)
+     * The batch is split by owner and by event; each gets one message per
+     * format, and /topic/area/{id} still gets one message per area.
+     * @param areas Latest state of each updated area
+     * @param deltas The same updates as compact deltas (same order)
+     * @param scans Latest scan of each updated area (same order)
+     */
+    public void broadcastAreaUpdates(List<AreaResponse> areas, List<AreaDelta> deltas, List<ScanEvent> scans) {
+        Map<String, AreaBatch> byTopic = new LinkedHashMap<>();
+        for (int i = 0; i < areas.size(); i++) {
+            AreaResponse area = areas.get(i);
+            messagingTemplate.convertAndSend("/topic/area/" + area.getId(), area);
+
+            byTopic.computeIfAbsent(ownerTopic(area.getOwnerEmail()), topic -> new AreaBatch())
+                    .add(area, deltas.get(i), scans.get(i));
+            if (area.getEventId() != null) {
+                byTopic.computeIfAbsent(eventTopic(area.getEventId()), topic -> new AreaBatch())
+                        .add(area, deltas.get(i), scans.get(i));
+            }
+        }
+        byTopic.forEach((topic, batch) -> {
+            messagingTemplate.convertAndSend(topic + "/areas", batch.areas);
+            messagingTemplate.convertAndSend(topic + "/areas/delta", batch.deltas);
+            if (binaryDeltas) {
+                messagingTemplate.convertAndSend(topic + "/areas/delta-bin", encodeDeltas(batch.deltas), OCTET_STREAM);
+            }
+            messagingTemplate.convertAndSend(topic + "/scans", batch.scans);
+        });
+    }
+
     /**
-     * Broadcast area update to all subscribed clients
-     * @param area Updated area data
+     * Broadcast an area's full state after a configuration change (or reset)
+     * @param area Area data
      */
-    public void broadcastAreaUpdate(AreaResponse area) {
-        messagingTemplate.convertAndSend("/topic/area/" + area.getId(), area);
-        messagingTemplate.convertAndSend("/topic/areas", area);
+    public void broadcastAreaConfig(AreaResponse area) {
+        messagingTemplate.convertAndSend(ownerTopic(area.getOwnerEmail()) + "/areas/config", area);
+        if (area.getEventId() != null) {
+            messagingTemplate.convertAndSend(eventTopic(area.getEventId()) + "/areas/config", area);
+        }
     }
 
     /**
-     * Broadcast all areas update (for dashboard refresh)
-     * @param areas List of all areas
+     * Encode deltas back to back in the fixed binary layout
      */
-    public void broadcastAllAreas(List<AreaResponse> areas) {
-        messagingTemplate.convertAndSend("/topic/areas/all", areas);
+    static byte[] encodeDeltas(List<AreaDelta> deltas) {
+        ByteBuffer buffer = ByteBuffer.allocate(deltas.size() * BINARY_DELTA_SIZE);
+        for (AreaDelta delta : deltas) {
+            buffer.putLong(delta.id());
+            buffer.putLong(delta.seq());
+            buffer.putInt(delta.count());
+            buffer.put((byte) delta.status());
+        }
+        return buffer.array();
     }
 
     /**
-     * Broadcast scan event
-     * @param areaId Area that was scanned
-     * @param scanType ENTRY or EXIT
-     * @param newCount Updated count
+     * Broadcast all areas of an owner (for dashboard refresh)
+     * @param ownerEmail Owner's email
+     * @param areas List of the owner's areas
      */
-    public void broadcastScanEvent(Long areaId, String scanType, Integer newCount) {
-        var event = new ScanEvent(areaId, scanType, newCount);
-        messagingTemplate.convertAndSend("/topic/scans", event);
+    public void broadcastAllAreas(String ownerEmail, List<AreaResponse> areas) {
+        messagingTemplate.convertAndSend(ownerTopic(ownerEmail) + "/areas/all", areas);
     }
 
     /**
-     * Broadcast alert to all subscribed clients
+     * Broadcast alert to the owner's and the area's subscribers
+     * @param ownerEmail Owner of the alert
      * @param alert Alert data
      */
-    public void broadcastAlert(AlertResponse alert) {
-        messagingTemplate.convertAndSend("/topic/alerts", alert);
+    public void broadcastAlert(String ownerEmail, AlertResponse alert) {
+        messagingTemplate.convertAndSend(ownerTopic(ownerEmail) + "/alerts", alert);
         messagingTemplate.convertAndSend("/topic/alerts/" + alert.getAreaId(), alert);
     }
 
+    /**
+     * Broadcast a bulk alert state change (one message per operation, not per alert)
+     * Topic: /topic/owner/{ownerEmail}/alerts/updates
+     * @param update What changed and how many alerts were affected
+     */
+    public void broadcastAlertsUpdated(AlertsUpdate update) {
+        messagingTemplate.convertAndSend(ownerTopic(update.ownerEmail()) + "/alerts/updates", update);
+    }
+
+    /**
+     * Broadcast an owner's unread alert count
+     * Topic: /topic/owner/{ownerEmail}/unread-count
+     */
+    public void broadcastUnreadCount(String ownerEmail, long count) {
+        messagingTemplate.convertAndSend(ownerTopic(ownerEmail) + "/unread-count", new UnreadCount(count));
+    }
+
+    /**
+     * Compact live area update: id, sequence number (increasing per update;
+     * drop anything not newer than the last applied), count and status code
+     * (0 = GREEN, 1 = YELLOW, 2 = RED)
+     */
+    public record AreaDelta(long id, long seq, int count, int status) {
+        public static AreaDelta of(AreaResponse area, long seq) {
+            return new AreaDelta(area.getId(), seq, area.getCurrentCount(), statusCode(area.getStatus()));
+        }
+
+        static int statusCode(String status) {
+            return switch (status) {
+                case "RED" -> 2;
+                case "YELLOW" -> 1;
+                default -> 0;
+            };
+        }
+    }
+
     /**
      * Simple scan event record for broadcasting
      */
     public record ScanEvent(Long areaId, String scanType, Integer newCount) {}
+
+    /**
+     * The part of an update batch going to one owner or event topic
+     */
+    private static class AreaBatch {
+        final List<AreaResponse> areas = new ArrayList<>();
+        final List<AreaDelta> deltas = new ArrayList<>();
+        final List<ScanEvent> scans = new ArrayList<>();
+
+        void add(AreaResponse area, AreaDelta delta, ScanEvent scan) {
+            areas.add(area);
+            deltas.add(delta);
+            scans.add(scan);
+        }
+    }
+
+    /**
+     * Bulk alert update: action is MARK_ALL_READ, RESOLVE_AREA or RESOLVE_EVENT
+     */
+    public record AlertsUpdate(String action, String ownerEmail, Long eventId, Long areaId,
+                               AlertType alertType, int affected) {}
+
+    /**
+     * Unread alert count of one owner
+     */
+    public record UnreadCount(long count) {}
 }
@@ -0,0 +1,358 @@
+package com.crowdmanagement.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebSocket Session Monitor
+ * -------------------------
+ * Slow-consumer detection and instrumentation of the STOMP channels.
+ *
+ * Per session it counts messages handed to the session on the outbound
+ * channel and frames actually written to the socket; the difference is the
+ * session's send queue depth (executor queue plus Spring's per-session
+ * buffer). A session more than max-pending messages behind gets the
+ * configured policy:
+ * DROP       - further messages to it are dropped until it catches up
+ * DISCONNECT - the session is closed (clients reconnect and refetch)
+ * Spring's send-time and send-buffer limits (WebSocketConfig) still close
+ * a session whose socket write stalls outright.
+ *
+ * Also tracks outbound messages per destination (owner emails and ids
+ * folded into {owner} / {id}) and the saturation of the channel executors.
+ *
+ * Metrics: websocket.sessions, websocket.outbound.messages{destination},
+ * websocket.outbound.dropped, websocket.session.slow-disconnects,
+ * websocket.executor.active / queued{executor}
+ * Snapshot: GET /api/websocket/stats
+ */
+@Service
+public class WebSocketSessionMonitor implements ChannelInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(WebSocketSessionMonitor.class);
+
+    private static final List<String> EXECUTORS = List.of(
+            "clientInboundChannelExecutor", "clientOutboundChannelExecutor", "brokerChannelExecutor");
+
+    // Sessions listed in the stats snapshot, most backed up first
+    private static final int STATS_SESSIONS = 20;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${app.websocket.slow-consumer.max-pending:500}")
+    private long maxPending;
+
+    @Value("${app.websocket.slow-consumer.policy:DISCONNECT}")
+    private SlowConsumerPolicy policy;
+
+    @Value("${app.websocket.stats.rate-window-seconds:10}")
+    private long rateWindowSeconds;
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final Map<String, DestinationRate> destinations = new ConcurrentHashMap<>();
+    private final Map<String, ThreadPoolTaskExecutor> executors = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService rateTicker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "websocket-rate-tick");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Counter dropped;
+    private Counter slowDisconnects;
+
+    @PostConstruct
+    public void start() {
+        dropped = meterRegistry.counter("websocket.outbound.dropped");
+        slowDisconnects = meterRegistry.counter("websocket.session.slow-disconnects");
+        Gauge.builder("websocket.sessions", sessions, Map::size).register(meterRegistry);
+        for (String name : EXECUTORS) {
+            Gauge.builder("websocket.executor.active", () -> {
+                ThreadPoolTaskExecutor executor = executor(name);
+                return executor != null ? executor.getActiveCount() : 0;
+            }).tag("executor", name).register(meterRegistry);
+            Gauge.builder("websocket.executor.queued", () -> {
+                ThreadPoolTaskExecutor executor = executor(name);
+                return executor != null ? executor.getThreadPoolExecutor().getQueue().size() : 0;
+            }).tag("executor", name).register(meterRegistry);
+        }
+        long window = Math.max(1, rateWindowSeconds);
+        rateTicker.scheduleAtFixedRate(() -> destinations.values().forEach(rate -> rate.roll(window)),
+                window, window, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rateTicker.shutdownNow();
+    }
+
+    /**
+     * Wrap the STOMP WebSocket handler so sessions report written frames
+     * (registered as a decorator factory in WebSocketConfig)
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SessionState state = new SessionState();
+                state.session = new MonitoredSession(session, state);
+                sessions.put(session.getId(), state);
+                super.afterConnectionEstablished(state.session);
+            }
+
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                super.handleMessage(monitored(session), message);
+            }
+
+            @Override
+            public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+                super.handleTransportError(monitored(session), exception);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                SessionState state = sessions.remove(session.getId());
+                super.afterConnectionClosed(state != null ? state.session : session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Outbound channel: count per destination and apply the slow-consumer policy
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionState state = sessionId != null ? sessions.get(sessionId) : null;
+        if (state == null) {
+            return message;
+        }
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+            if (state.pending() >= maxPending) {
+                state.dropped.incrementAndGet();
+                dropped.increment();
+                if (policy == SlowConsumerPolicy.DISCONNECT) {
+                    disconnect(state);
+                }
+                return null;
+            }
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            if (destination != null) {
+                destinationRate(normalize(destination)).record();
+            }
+        }
+        state.queued.incrementAndGet();
+        return message;
+    }
+
+    /**
+     * Snapshot of sessions, destinations and channel executors
+     */
+    public Stats stats() {
+        long now = System.currentTimeMillis();
+        List<SessionStats> sessionStats = new ArrayList<>(sessions.size());
+        long totalPending = 0;
+        for (Map.Entry<String, SessionState> entry : sessions.entrySet()) {
+            SessionState state = entry.getValue();
+            long sendStartedAt = state.sendStartedAt;
+            totalPending += state.pending();
+            sessionStats.add(new SessionStats(entry.getKey(), state.pending(), state.sent.get(),
+                    state.dropped.get(), sendStartedAt > 0 ? now - sendStartedAt : 0));
+        }
+        sessionStats.sort(Comparator.comparingLong(SessionStats::pending).reversed());
+
+        List<DestinationStats> destinationStats = new ArrayList<>(destinations.size());
+        destinations.forEach((destination, rate) -> destinationStats.add(
+                new DestinationStats(destination, rate.total.get(), rate.perSecond)));
+        destinationStats.sort(Comparator.comparingDouble(DestinationStats::perSecond).reversed());
+
+        List<ExecutorStats> executorStats = new ArrayList<>();
+        for (String name : EXECUTORS) {
+            ThreadPoolTaskExecutor executor = executor(name);
+            if (executor != null) {
+                executorStats.add(new ExecutorStats(name, executor.getPoolSize(), executor.getMaxPoolSize(),
+                        executor.getActiveCount(), executor.getThreadPoolExecutor().getQueue().size(),
+                        executor.getThreadPoolExecutor().getQueue().remainingCapacity(),
+                        executor.getThreadPoolExecutor().getCompletedTaskCount()));
+            }
+        }
+
+        return new Stats(policy, maxPending, sessions.size(), totalPending,
+                (long) slowDisconnects.count(), (long) dropped.count(),
+                sessionStats.subList(0, Math.min(STATS_SESSIONS, sessionStats.size())),
+                destinationStats, executorStats);
+    }
+
+    private void disconnect(SessionState state) {
+        if (!state.closing.compareAndSet(false, true)) {
+            return;
+        }
+        slowDisconnects.increment();
+        log.warn("Closing slow WebSocket session {}: {} messages pending", state.session.getId(), state.pending());
+        try {
+            state.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("Failed to close WebSocket session {}: {}", state.session.getId(), e.getMessage());
+        }
+    }
+
+    private WebSocketSession monitored(WebSocketSession session) {
+        SessionState state = sessions.get(session.getId());
+        return state != null ? state.session : session;
+    }
+
+    private DestinationRate destinationRate(String destination) {
+        DestinationRate rate = destinations.get(destination);
+        if (rate == null) {
+            rate = destinations.computeIfAbsent(destination, d -> new DestinationRate(
+                    meterRegistry.counter("websocket.outbound.messages", "destination", d)));
+        }
+        return rate;
+    }
+
+    private ThreadPoolTaskExecutor executor(String name) {
+        ThreadPoolTaskExecutor executor = executors.get(name);
+        if (executor == null && applicationContext.containsBean(name)) {
+            Object bean = applicationContext.getBean(name);
+            if (bean instanceof ThreadPoolTaskExecutor pool) {
+                executors.put(name, pool);
+                executor = pool;
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Fold tenant and id segments so destinations have bounded cardinality:
+     * /topic/owner/a@b.com/areas -> /topic/owner/{owner}/areas
+     */
+    static String normalize(String destination) {
+        String[] parts = destination.split("/");
+        if (parts.length >= 4 && ("topic".equals(parts[1]) || "app".equals(parts[1]))) {
+            switch (parts[2]) {
+                case "owner" -> parts[3] = "{owner}";
+                case "event", "area", "alerts" -> parts[3] = "{id}";
+                default -> { }
+            }
+        }
+        return String.join("/", parts);
+    }
+
+    /**
+     * What to do with a session that falls more than max-pending messages behind
+     */
+    public enum SlowConsumerPolicy { DROP, DISCONNECT }
+
+    /**
+     * Counters of one session
+     */
+    private static class SessionState {
+        WebSocketSession session;
+        final AtomicLong queued = new AtomicLong();
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+        final AtomicBoolean closing = new AtomicBoolean();
+        volatile long sendStartedAt;
+
+        long pending() {
+            return Math.max(0, queued.get() - sent.get());
+        }
+    }
+
+    /**
+     * Session seen by Spring's STOMP handler: counts frames written to the socket
+     */
+    private static class MonitoredSession extends WebSocketSessionDecorator {
+        private final SessionState state;
+
+        MonitoredSession(WebSocketSession delegate, SessionState state) {
+            super(delegate);
+            this.state = state;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            state.sendStartedAt = System.currentTimeMillis();
+            try {
+                super.sendMessage(message);
+            } finally {
+                state.sendStartedAt = 0;
+                state.sent.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Outbound message count of one destination and its rate over the last window
+     */
+    private static class DestinationRate {
+        final AtomicLong total = new AtomicLong();
+        final Counter counter;
+        long lastTotal;
+        volatile double perSecond;
+
+        DestinationRate(Counter counter) {
+            this.counter = counter;
+        }
+
+        void record() {
+            total.incrementAndGet();
+            counter.increment();
+        }
+
+        void roll(long windowSeconds) {
+            long current = total.get();
+            perSecond = Math.round((current - lastTotal) * 10.0 / windowSeconds) / 10.0;
+            lastTotal = current;
+        }
+    }
+
+    public record Stats(SlowConsumerPolicy policy, long maxPending, int sessions, long totalPending,
+                        long slowDisconnects, long droppedMessages, List<SessionStats> slowestSessions,
+                        List<DestinationStats> destinations, List<ExecutorStats> executors) {}
+
+    public record SessionStats(String sessionId, long pending, long sent, long dropped, long sendInProgressMs) {}
+
+    public record DestinationStats(String destination, long total, double perSecond) {}
+
+    public record ExecutorStats(String name, int poolSize, int maxPoolSize, int active, int queued,
+                                int remainingCapacity, long completed) {}
+}
@@ -0,0 +1,143 @@
+package com.crowdmanagement.config;
+
+import com.crowdmanagement.service.WebSocketService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Two application nodes relaying to the same STOMP broker: a broadcast
+ * published on node A reaches a dashboard session connected to node B.
+ *
+ * Needs a running broker with STOMP enabled, so it only runs when
+ * STOMP_RELAY_HOST is set (optionally STOMP_RELAY_PORT, STOMP_RELAY_LOGIN,
+ * STOMP_RELAY_PASSCODE), with the relay's Reactor Netty on the classpath:
+ *   STOMP_RELAY_HOST=localhost mvn test -Pstomp-relay -Dtest=StompRelayCrossInstanceTest
+ */
+class StompRelayCrossInstanceTest {
+
+    private static final String SESSION = "dashboard-on-b";
+    private static final long TIMEOUT_MS = 10000;
+
+    private final List<StompBrokerRelayMessageHandler> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(StompBrokerRelayMessageHandler::stop);
+    }
+
+    @Test
+    void broadcastOnOneNodeReachesSubscriberOnAnother() throws Exception {
+        String host = System.getenv("STOMP_RELAY_HOST");
+        assumeTrue(host != null && !host.isBlank(), "STOMP_RELAY_HOST is not set");
+
+        BlockingQueue<Message<?>> toClientsOfA = new LinkedBlockingQueue<>();
+        BlockingQueue<Message<?>> toClientsOfB = new LinkedBlockingQueue<>();
+        StompBrokerRelayMessageHandler nodeA = startNode(host, toClientsOfA);
+        StompBrokerRelayMessageHandler nodeB = startNode(host, toClientsOfB);
+
+        String destination = WebSocketService.ownerTopic("relay-" + UUID.randomUUID() + "@example.com") + "/areas";
+
+        StompHeaderAccessor connect = frame(StompCommand.CONNECT);
+        connect.setAcceptVersion("1.2");
+        connect.setHeartbeat(0, 0);
+        nodeB.handleMessage(message(connect, new byte[0]));
+        awaitFrame(toClientsOfB, StompCommand.CONNECTED);
+
+        StompHeaderAccessor subscribe = frame(StompCommand.SUBSCRIBE);
+        subscribe.setDestination(destination);
+        subscribe.setSubscriptionId("sub-0");
+        subscribe.setReceipt("subscribed");
+        nodeB.handleMessage(message(subscribe, new byte[0]));
+        awaitFrame(toClientsOfB, StompCommand.RECEIPT);
+
+        // What SimpMessagingTemplate hands the broker: no session, sent over the system connection
+        SimpMessageHeaderAccessor broadcast = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        broadcast.setDestination(destination);
+        nodeA.handleMessage(message(broadcast, "[{\"id\":1}]".getBytes(StandardCharsets.UTF_8)));
+
+        Message<?> delivered = awaitFrame(toClientsOfB, StompCommand.MESSAGE);
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(delivered);
+        assertEquals(destination, headers.getDestination());
+        assertEquals(SESSION, headers.getSessionId());
+        assertEquals("[{\"id\":1}]", new String((byte[]) delivered.getPayload(), StandardCharsets.UTF_8));
+        assertEquals(0, toClientsOfA.size(), "node A has no client sessions to deliver to");
+    }
+
+    private StompBrokerRelayMessageHandler startNode(String host, BlockingQueue<Message<?>> toClients)
+            throws InterruptedException {
+        ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        clientOutbound.subscribe(toClients::add);
+        StompBrokerRelayMessageHandler node = new StompBrokerRelayMessageHandler(
+                new ExecutorSubscribableChannel(), clientOutbound, new ExecutorSubscribableChannel(),
+                List.of("/topic", "/queue"));
+        node.setRelayHost(host);
+        node.setRelayPort(Integer.parseInt(env("STOMP_RELAY_PORT", "61613")));
+        node.setClientLogin(env("STOMP_RELAY_LOGIN", "guest"));
+        node.setClientPasscode(env("STOMP_RELAY_PASSCODE", "guest"));
+        node.setSystemLogin(env("STOMP_RELAY_LOGIN", "guest"));
+        node.setSystemPasscode(env("STOMP_RELAY_PASSCODE", "guest"));
+        node.start();
+        nodes.add(node);
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!node.isBrokerAvailable()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Relay system session did not connect to " + host);
+            }
+            Thread.sleep(50);
+        }
+        return node;
+    }
+
+    private static Message<?> awaitFrame(BlockingQueue<Message<?>> frames, StompCommand command)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (true) {
+            Message<?> frame = frames.poll(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            assertNotNull(frame, "No " + command + " frame within " + TIMEOUT_MS + " ms");
+            StompCommand received = StompHeaderAccessor.wrap(frame).getCommand();
+            if (received == StompCommand.ERROR) {
+                fail("Broker sent ERROR: " + StompHeaderAccessor.wrap(frame).getMessage());
+            }
+            if (received == command) {
+                return frame;
+            }
+        }
+    }
+
+    private static StompHeaderAccessor frame(StompCommand command) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(SESSION);
+        return accessor;
+    }
+
+    private static Message<byte[]> message(SimpMessageHeaderAccessor accessor, byte[] payload) {
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isBlank() ? value : defaultValue;
+    }
+}
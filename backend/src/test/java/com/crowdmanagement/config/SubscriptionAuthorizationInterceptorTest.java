@@ -0,0 +1,205 @@
+package com.crowdmanagement.config;
+
+import com.crowdmanagement.entity.Area;
+import com.crowdmanagement.entity.Event;
+import com.crowdmanagement.repository.AdminUserRepository;
+import com.crowdmanagement.repository.AreaRepository;
+import com.crowdmanagement.repository.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SubscriptionAuthorizationInterceptorTest {
+
+    private static final String OWNER = "owner@example.com";
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private AreaRepository areaRepository;
+
+    @Mock
+    private AdminUserRepository adminUserRepository;
+
+    @InjectMocks
+    private SubscriptionAuthorizationInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        when(eventRepository.findByIdAndOwnerEmail(anyLong(), any())).thenReturn(Optional.empty());
+        when(eventRepository.findByIdAndOwnerEmail(7L, OWNER)).thenReturn(Optional.of(new Event()));
+        when(areaRepository.findByIdAndOwnerEmail(anyLong(), any())).thenReturn(Optional.empty());
+        when(areaRepository.findByIdAndOwnerEmail(3L, OWNER)).thenReturn(Optional.of(new Area()));
+        when(adminUserRepository.existsByEmail(anyString())).thenReturn(false);
+        when(adminUserRepository.existsByEmail(OWNER)).thenReturn(true);
+    }
+
+    @Test
+    void allowsOwnTenantTopics() {
+        assertTrue(interceptor.isAllowed("/topic/owner/" + OWNER + "/areas/delta", OWNER));
+        assertTrue(interceptor.isAllowed("/topic/event/7/areas", OWNER));
+        assertTrue(interceptor.isAllowed("/topic/area/3", OWNER));
+        assertTrue(interceptor.isAllowed("/topic/alerts/3", OWNER));
+        assertTrue(interceptor.isAllowed("/app/owner/" + OWNER + "/areas/snapshot", OWNER));
+        assertTrue(interceptor.isAllowed("/app/event/7/areas/snapshot", OWNER));
+        assertTrue(interceptor.isAllowed("/user/queue/scan-acks", null));
+    }
+
+    @Test
+    void refusesOtherTenants() {
+        assertFalse(interceptor.isAllowed("/topic/owner/other@example.com/areas", OWNER));
+        assertFalse(interceptor.isAllowed("/topic/event/8/areas", OWNER));
+        assertFalse(interceptor.isAllowed("/topic/area/4", OWNER));
+        assertFalse(interceptor.isAllowed("/app/event/8/areas/snapshot", OWNER));
+        assertFalse(interceptor.isAllowed("/topic/owner/" + OWNER + "/areas", null));
+    }
+
+    @Test
+    void refusesPatternsAndUnknownDestinations() {
+        for (String destination : List.of("/topic/**", "/topic/*/*/areas", "/topic/owner/*/areas",
+                "/topic/owner/" + OWNER + "/**", "/topic/owner/" + OWNER + "/area?", "/topic/areas",
+                "/topic/scans", "/topic/owner/" + OWNER, "/topic/unknown/1/x", "/queue/scan-acks",
+                "/app/scan", "/app/owner/" + OWNER + "/other")) {
+            assertFalse(interceptor.isAllowed(destination, OWNER), destination);
+        }
+    }
+
+    @Test
+    void refusesRelayBroadcasts() {
+        assertFalse(interceptor.isAllowed(WebSocketConfig.USER_DESTINATION_BROADCAST, OWNER));
+        assertFalse(interceptor.isAllowed(WebSocketConfig.USER_REGISTRY_BROADCAST, OWNER));
+        assertFalse(interceptor.isSendAllowed(WebSocketConfig.USER_REGISTRY_BROADCAST));
+    }
+
+    @Test
+    void sendOnlyToApplicationDestinations() {
+        assertTrue(interceptor.isSendAllowed("/app/scan"));
+        assertFalse(interceptor.isSendAllowed("/topic/owner/" + OWNER + "/alerts"));
+        assertFalse(interceptor.isSendAllowed("/queue/scan-acks"));
+        assertFalse(interceptor.isSendAllowed("/user/" + OWNER + "/queue/scan-acks"));
+    }
+
+    @Test
+    void localLoginSessionIsIdentifiedByConnectHeader() {
+        Map<String, Object> session = connect(OWNER, null);
+        assertEquals(OWNER, session.get("ownerEmail"));
+
+        assertDoesNotThrow(() -> interceptor.preSend(subscribe(session, "/topic/owner/" + OWNER + "/areas"), null));
+        assertDoesNotThrow(() -> interceptor.preSend(subscribe(session, "/topic/event/7/areas"), null));
+        assertDoesNotThrow(() -> interceptor.preSend(subscribe(session, "/topic/alerts/3"), null));
+        assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(subscribe(session, "/topic/owner/other@example.com/areas"), null));
+    }
+
+    @Test
+    void headerOfAnUnregisteredEmailIsIgnored() {
+        Map<String, Object> session = connect("stranger@example.com", null);
+        assertNull(session.get("ownerEmail"));
+
+        assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(subscribe(session, "/topic/owner/stranger@example.com/areas"), null));
+    }
+
+    @Test
+    void handshakeLoginWinsOverHeader() {
+        when(adminUserRepository.existsByEmail("other@example.com")).thenReturn(true);
+        Map<String, Object> session = connect("other@example.com", oauthUser(OWNER));
+        assertEquals(OWNER, session.get("ownerEmail"));
+
+        assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(subscribe(session, "/topic/owner/other@example.com/areas"), null));
+    }
+
+    @Test
+    void ownershipIsQueriedOncePerSession() {
+        Map<String, Object> session = connect(null, oauthUser(OWNER));
+
+        for (int i = 0; i < 5; i++) {
+            interceptor.preSend(subscribe(session, "/topic/event/7/areas"), null);
+            interceptor.preSend(subscribe(session, "/topic/event/7/alerts"), null);
+            interceptor.preSend(subscribe(session, "/topic/area/3"), null);
+            interceptor.preSend(subscribe(session, "/topic/alerts/3"), null);
+        }
+
+        verify(eventRepository, times(1)).findByIdAndOwnerEmail(7L, OWNER);
+        verify(areaRepository, times(1)).findByIdAndOwnerEmail(3L, OWNER);
+
+        // A new session asks again
+        Map<String, Object> next = connect(null, oauthUser(OWNER));
+        interceptor.preSend(subscribe(next, "/topic/area/3"), null);
+        verify(areaRepository, times(2)).findByIdAndOwnerEmail(3L, OWNER);
+    }
+
+    @Test
+    void rejectsClientSendToBroker() {
+        StompHeaderAccessor send = StompHeaderAccessor.create(StompCommand.SEND);
+        send.setSessionAttributes(new HashMap<>());
+        send.setDestination("/topic/owner/victim@example.com/alerts");
+        assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(message(send), null));
+    }
+
+    /**
+     * Session attributes after a CONNECT with the header and handshake user given
+     */
+    private Map<String, Object> connect(String headerEmail, OAuth2AuthenticationToken user) {
+        Map<String, Object> session = new HashMap<>();
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionAttributes(session);
+        if (headerEmail != null) {
+            connect.setNativeHeader(SubscriptionAuthorizationInterceptor.EMAIL_HEADER, headerEmail);
+        }
+        connect.setUser(user);
+        interceptor.preSend(message(connect), null);
+        return session;
+    }
+
+    private static Message<byte[]> subscribe(Map<String, Object> session, String destination) {
+        StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        subscribe.setSessionAttributes(session);
+        subscribe.setDestination(destination);
+        return message(subscribe);
+    }
+
+    private static OAuth2AuthenticationToken oauthUser(String email) {
+        return new OAuth2AuthenticationToken(
+                new DefaultOAuth2User(List.of(), Map.of("sub", "1", "email", email), "sub"), List.of(), "google");
+    }
+
+    private static Message<byte[]> message(StompHeaderAccessor accessor) {
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
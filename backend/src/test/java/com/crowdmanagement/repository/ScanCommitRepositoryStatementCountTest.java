@@ -0,0 +1,150 @@
+package com.crowdmanagement.repository;
+
+import com.crowdmanagement.entity.ScanType;
+import com.crowdmanagement.repository.ScanCommitRepository.CommittedScan;
+import com.crowdmanagement.repository.ScanCommitRepository.ScanLogRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counts the statements ScanCommitRepository sends through a recording
+ * DataSource: on PostgreSQL a scan must cost exactly one round trip.
+ */
+class ScanCommitRepositoryStatementCountTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private final List<String> executed = new ArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @Test
+    void postgresScanIsOneStatement() throws Exception {
+        ScanCommitRepository repository = repository("PostgreSQL");
+
+        for (int i = 0; i < 3; i++) {
+            executed.clear();
+            connections.set(0);
+            CommittedScan scan = repository.commitScan(3L, ScanType.ENTRY, NOW);
+
+            assertEquals(1, executed.size(), "statements for one scan: " + executed);
+            assertTrue(executed.get(0).startsWith("WITH updated AS ("), executed.get(0));
+            assertEquals(42L, scan.scanLogId());
+            assertEquals(11, scan.newCount());
+            // The dialect probe borrows a connection on the first scan only
+            assertEquals(i == 0 ? 2 : 1, connections.get());
+        }
+    }
+
+    @Test
+    void otherDatabasesNeedThreeStatements() throws Exception {
+        ScanCommitRepository repository = repository("MySQL");
+
+        repository.commitScan(3L, ScanType.EXIT, NOW);
+
+        assertEquals(3, executed.size(), "statements: " + executed);
+        assertTrue(executed.get(0).startsWith("UPDATE areas"));
+        assertTrue(executed.get(1).startsWith("SELECT"));
+        assertTrue(executed.get(2).startsWith("INSERT INTO scan_logs"));
+    }
+
+    @Test
+    void scanLogBatchIsOneStatement() throws Exception {
+        ScanCommitRepository repository = repository("PostgreSQL");
+        List<ScanLogRow> rows = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            rows.add(new ScanLogRow(3L, ScanType.ENTRY, NOW));
+        }
+
+        repository.insertScanLogs(rows);
+
+        assertEquals(List.of("BATCH INSERT INTO scan_logs (area_id, scan_type, timestamp) VALUES (?, ?, ?)"), executed);
+    }
+
+    /**
+     * Repository over a DataSource whose statements record every execution
+     */
+    private ScanCommitRepository repository(String product) throws Exception {
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn(product);
+        when(metaData.supportsBatchUpdates()).thenReturn(true);
+
+        Connection connection = mock(Connection.class, invocation -> {
+            String method = invocation.getMethod().getName();
+            if (method.equals("getMetaData")) {
+                return metaData;
+            }
+            if (method.equals("prepareStatement")) {
+                return statement((String) invocation.getArgument(0), (Connection) invocation.getMock());
+            }
+            return null;
+        });
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            connections.incrementAndGet();
+            return connection;
+        });
+
+        ScanCommitRepository repository = new ScanCommitRepository();
+        ReflectionTestUtils.setField(repository, "jdbcTemplate", new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(repository, "dataSource", dataSource);
+        return repository;
+    }
+
+    private PreparedStatement statement(String sql, Connection connection) throws Exception {
+        ResultSet row = areaRow();
+        ResultSet noKeys = mock(ResultSet.class);
+        return mock(PreparedStatement.class, invocation -> switch (invocation.getMethod().getName()) {
+            case "executeQuery" -> {
+                executed.add(sql);
+                yield row;
+            }
+            case "executeUpdate" -> {
+                executed.add(sql);
+                yield 1;
+            }
+            case "executeBatch" -> {
+                executed.add("BATCH " + sql);
+                yield new int[0];
+            }
+            case "getGeneratedKeys" -> noKeys;
+            case "getConnection" -> connection;
+            default -> invocation.getMethod().getReturnType() == boolean.class ? false : null;
+        });
+    }
+
+    /**
+     * The area row after the update (count 11), with scan log 42
+     */
+    private static ResultSet areaRow() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getObject(anyString())).thenAnswer(invocation ->
+                "event_id".equals(invocation.getArgument(0)) ? null : 1L);
+        when(rs.getLong("scan_log_id")).thenReturn(42L);
+        when(rs.getLong("id")).thenReturn(3L);
+        when(rs.getString("name")).thenReturn("Gate");
+        when(rs.getString("owner_email")).thenReturn("owner@example.com");
+        when(rs.getInt("capacity")).thenReturn(100);
+        when(rs.getInt("threshold")).thenReturn(80);
+        when(rs.getInt("current_count")).thenReturn(11);
+        when(rs.getBoolean("generate_qr")).thenReturn(true);
+        return rs;
+    }
+}
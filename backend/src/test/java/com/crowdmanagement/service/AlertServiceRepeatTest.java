@@ -0,0 +1,133 @@
+package com.crowdmanagement.service;
+
+import com.crowdmanagement.entity.Alert;
+import com.crowdmanagement.entity.AlertType;
+import com.crowdmanagement.entity.Area;
+import com.crowdmanagement.repository.AlertRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Repeats of an alert are counted in memory: however often an area
+ * re-breaches, the database and the dashboards only hear about it when
+ * the alert changes state or the repeats are flushed.
+ */
+class AlertServiceRepeatTest {
+
+    private static final long ALERT_ID = 7L;
+    private static final int REPEATS = 50;
+
+    private final AlertRepository alertRepository = mock(AlertRepository.class);
+    private final WebSocketService webSocketService = mock(WebSocketService.class);
+
+    private ActiveAlertIndex activeAlertIndex;
+    private AlertService alertService;
+    private Area area;
+
+    @BeforeEach
+    void setUp() {
+        when(alertRepository.findAllUnresolved()).thenReturn(List.of());
+        when(alertRepository.save(any(Alert.class))).thenAnswer(invocation -> {
+            Alert alert = invocation.getArgument(0);
+            alert.setId(ALERT_ID);
+            return alert;
+        });
+        when(alertRepository.resolveByAreaAndType(any(), any(), any())).thenReturn(1);
+
+        activeAlertIndex = new ActiveAlertIndex();
+        ReflectionTestUtils.setField(activeAlertIndex, "alertRepository", alertRepository);
+        ReflectionTestUtils.setField(activeAlertIndex, "webSocketService", webSocketService);
+        ReflectionTestUtils.setField(activeAlertIndex, "repeatFlushSeconds", 3600L);
+        activeAlertIndex.load();
+
+        RapidInflowDetector rapidInflowDetector = new RapidInflowDetector();
+        ReflectionTestUtils.setField(rapidInflowDetector, "count", 10);
+        ReflectionTestUtils.setField(rapidInflowDetector, "windowSeconds", 30);
+
+        alertService = new AlertService();
+        ReflectionTestUtils.setField(alertService, "alertRepository", alertRepository);
+        ReflectionTestUtils.setField(alertService, "webSocketService", webSocketService);
+        ReflectionTestUtils.setField(alertService, "rapidInflowDetector", rapidInflowDetector);
+        ReflectionTestUtils.setField(alertService, "activeAlertIndex", activeAlertIndex);
+        ReflectionTestUtils.setField(alertService, "resolveBandPercent", 5.0);
+        ReflectionTestUtils.setField(alertService, "refireIntervalSeconds", 60L);
+
+        area = new Area(3L, "Gate", "owner@example.com", 100, 80, 0, null, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        activeAlertIndex.stop();
+    }
+
+    @Test
+    void repeatsOfAnActiveAlertAreNotWrittenOrBroadcast() {
+        assertNotNull(alertService.raiseRapidInflow(area));
+        clearInvocations(alertRepository, webSocketService);
+
+        for (int i = 0; i < REPEATS; i++) {
+            area.setCurrentCount(i);
+            assertNull(alertService.raiseRapidInflow(area));
+        }
+
+        verifyNoInteractions(alertRepository, webSocketService);
+
+        assertEquals(1, activeAlertIndex.flushRepeats(null));
+        verify(alertRepository).recordOccurrences(eq(ALERT_ID), eq(REPEATS), eq(REPEATS - 1), any(LocalDateTime.class));
+        verifyNoMoreInteractions(alertRepository);
+    }
+
+    @Test
+    void reBreachWithinTheRefireIntervalStaysSilent() {
+        area.setCurrentCount(80);
+        assertNotNull(alertService.evaluateTransition(area, 79));
+        area.setCurrentCount(0);
+        alertService.evaluateTransition(area, 80);
+        clearInvocations(alertRepository, webSocketService);
+
+        for (int i = 0; i < REPEATS; i++) {
+            area.setCurrentCount(80);
+            assertNull(alertService.evaluateTransition(area, 79));
+        }
+
+        // Still resolved: nothing to write, nothing to resolve, nothing to tell
+        verifyNoInteractions(alertRepository, webSocketService);
+
+        assertEquals(1, activeAlertIndex.flushRepeats(null));
+        verify(alertRepository).recordOccurrences(eq(ALERT_ID), eq(REPEATS), eq(80), any(LocalDateTime.class));
+    }
+
+    @Test
+    void resolveWritesPendingRepeatsFirst() {
+        area.setCurrentCount(80);
+        alertService.evaluateTransition(area, 79);
+        for (int i = 0; i < REPEATS; i++) {
+            alertService.evaluateTransition(area, 79);
+        }
+        clearInvocations(alertRepository, webSocketService);
+
+        area.setCurrentCount(0);
+        alertService.evaluateTransition(area, 80);
+
+        verify(alertRepository).recordOccurrences(eq(ALERT_ID), eq(REPEATS), eq(80), any(LocalDateTime.class));
+        verify(alertRepository).resolveByAreaAndType(eq(3L), eq(AlertType.THRESHOLD_BREACH), any());
+        assertEquals(0, activeAlertIndex.flushRepeats(null));
+    }
+}
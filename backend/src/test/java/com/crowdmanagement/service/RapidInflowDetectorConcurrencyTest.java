@@ -0,0 +1,208 @@
+package com.crowdmanagement.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 64 threads recording entries at once: the lock-free rings must neither
+ * lose entries nor report inflow that did not happen.
+ */
+class RapidInflowDetectorConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int ENTRIES_PER_THREAD = 2000;
+    private static final int COUNT = 10;
+    private static final int WINDOW_SECONDS = 30;
+    private static final long NOW = 1_700_000_000_000L;
+
+    private RapidInflowDetector detector;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        detector = new RapidInflowDetector();
+        ReflectionTestUtils.setField(detector, "count", COUNT);
+        ReflectionTestUtils.setField(detector, "windowSeconds", WINDOW_SECONDS);
+        ReflectionTestUtils.setField(detector, "idleEvictSeconds", 300);
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        detector.stop();
+    }
+
+    @Test
+    void burstOnAFullRingIsAlwaysDetected() throws Exception {
+        for (int i = 0; i < COUNT; i++) {
+            detector.recordEntry(1L, NOW);
+        }
+
+        AtomicInteger detected = new AtomicInteger();
+        runConcurrently(thread -> {
+            for (int i = 0; i < ENTRIES_PER_THREAD; i++) {
+                if (detector.recordEntry(1L, NOW)) {
+                    detected.incrementAndGet();
+                }
+            }
+        });
+
+        // Every slot already held NOW, so no entry can read one outside the window
+        int total = THREADS * ENTRIES_PER_THREAD;
+        assertEquals(total, detected.get());
+        assertEquals(COUNT + total, sequence(1L));
+        assertRingHolds(1L, NOW);
+    }
+
+    @Test
+    void burstOverwritesEverySlot() throws Exception {
+        for (int i = 0; i < COUNT; i++) {
+            detector.recordEntry(1L, NOW);
+        }
+        long later = NOW + TimeUnit.SECONDS.toMillis(WINDOW_SECONDS) + 1;
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < ENTRIES_PER_THREAD; i++) {
+                detector.recordEntry(1L, later);
+            }
+        });
+
+        // A lost write would leave an entry from NOW behind, outside the window
+        assertEquals(COUNT + THREADS * ENTRIES_PER_THREAD, sequence(1L));
+        assertRingHolds(1L, later);
+        assertTrue(detector.recordEntry(1L, later));
+    }
+
+    @Test
+    void firstFillNeverFlagsEarly() throws Exception {
+        AtomicInteger detected = new AtomicInteger();
+        runConcurrently(thread -> {
+            for (int i = 0; i < ENTRIES_PER_THREAD; i++) {
+                if (detector.recordEntry(1L, NOW)) {
+                    detected.incrementAndGet();
+                }
+            }
+        });
+
+        // The first COUNT - 1 entries cannot flag; the rest only miss while an earlier slot is unwritten
+        int total = THREADS * ENTRIES_PER_THREAD;
+        assertTrue(detected.get() <= total - (COUNT - 1), "detected " + detected.get() + " of " + total);
+        assertEquals(total, sequence(1L));
+        assertRingHolds(1L, NOW);
+    }
+
+    @Test
+    void entriesSpreadBeyondTheWindowNeverFlag() throws Exception {
+        long spacing = TimeUnit.SECONDS.toMillis(WINDOW_SECONDS) / (COUNT - 1) + 1;
+        AtomicInteger detected = new AtomicInteger();
+        // One area per thread: each sees COUNT entries spanning just over the window, over and over
+        runConcurrently(thread -> {
+            for (int i = 0; i < ENTRIES_PER_THREAD; i++) {
+                if (detector.recordEntry((long) thread, NOW + i * spacing)) {
+                    detected.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(0, detected.get());
+        for (int thread = 0; thread < THREADS; thread++) {
+            long last = NOW + (ENTRIES_PER_THREAD - 1) * spacing;
+            assertFalse(detector.recordEntry((long) thread, last + spacing));
+        }
+    }
+
+    @Test
+    void areasDoNotShareRings() throws Exception {
+        AtomicInteger detected = new AtomicInteger();
+        // Every area gets exactly COUNT - 1 entries, some of them from two threads: none may flag
+        runConcurrently(thread -> {
+            for (int i = 0; i < ENTRIES_PER_THREAD; i++) {
+                long areaId = (thread * (long) ENTRIES_PER_THREAD + i) / (COUNT - 1);
+                if (detector.recordEntry(areaId, NOW)) {
+                    detected.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(0, detected.get());
+    }
+
+    @Test
+    void evictionAndRemovalRaceWithRecording() throws Exception {
+        AtomicInteger detected = new AtomicInteger();
+        runConcurrently(thread -> {
+            for (int i = 0; i < ENTRIES_PER_THREAD; i++) {
+                if (thread == 0) {
+                    // Evict only rings idle before NOW: none of them, they are all in use
+                    detector.evictIdle(NOW - 1);
+                } else if (thread == 1) {
+                    detector.remove(2L);
+                } else if (detector.recordEntry(thread % 2 == 0 ? 1L : 2L, NOW)) {
+                    detected.incrementAndGet();
+                }
+            }
+        });
+
+        assertTrue(detected.get() > 0);
+        // Area 1 was never removed: its ring survived the sweeps and is full
+        assertTrue(detector.recordEntry(1L, NOW));
+    }
+
+    private long sequence(Long areaId) {
+        return ((AtomicLong) ReflectionTestUtils.getField(window(areaId), "sequence")).get();
+    }
+
+    private void assertRingHolds(Long areaId, long millis) {
+        AtomicLongArray ring = (AtomicLongArray) ReflectionTestUtils.getField(window(areaId), "ring");
+        for (int slot = 0; slot < ring.length(); slot++) {
+            assertEquals(millis, ring.get(slot), "slot " + slot);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private RapidInflowDetector.Window window(Long areaId) {
+        Map<Long, RapidInflowDetector.Window> windows =
+                (Map<Long, RapidInflowDetector.Window>) ReflectionTestUtils.getField(detector, "windows");
+        return windows.get(areaId);
+    }
+
+    /**
+     * Run the work on every thread at once and rethrow the first failure
+     */
+    private void runConcurrently(IntConsumer work) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                work.accept(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+}
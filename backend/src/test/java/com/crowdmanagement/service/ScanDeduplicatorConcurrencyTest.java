@@ -0,0 +1,115 @@
+package com.crowdmanagement.service;
+
+import com.crowdmanagement.dto.ScanResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Claims racing generation rotations: whatever the interleaving, exactly
+ * one caller may own a scan ID.
+ */
+class ScanDeduplicatorConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 2000;
+
+    private ScanDeduplicator deduplicator;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        deduplicator = new ScanDeduplicator();
+        ReflectionTestUtils.setField(deduplicator, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(deduplicator, "windowSeconds", 600L);
+        ReflectionTestUtils.setField(deduplicator, "maxEntriesPerGeneration", 200000);
+        ReflectionTestUtils.setField(deduplicator, "waitMs", 1000L);
+        deduplicator.init();
+        pool = Executors.newFixedThreadPool(THREADS + 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void oneOwnerPerIdWhileRotating() throws Exception {
+        // Each round: THREADS callers claim one ID while another thread rotates once
+        UUID[] ids = new UUID[ROUNDS];
+        AtomicInteger[] owners = new AtomicInteger[ROUNDS];
+        ScanDeduplicator.Claim[][] claims = new ScanDeduplicator.Claim[ROUNDS][THREADS];
+        for (int round = 0; round < ROUNDS; round++) {
+            ids[round] = UUID.randomUUID();
+            owners[round] = new AtomicInteger();
+        }
+        CyclicBarrier barrier = new CyclicBarrier(THREADS + 1);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                for (int round = 0; round < ROUNDS; round++) {
+                    barrier.await(10, TimeUnit.SECONDS);
+                    ScanDeduplicator.Claim claim = deduplicator.claim(ids[round]);
+                    claims[round][thread] = claim;
+                    if (claim.owned()) {
+                        owners[round].incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        futures.add(pool.submit(() -> {
+            for (int round = 0; round < ROUNDS; round++) {
+                barrier.await(10, TimeUnit.SECONDS);
+                deduplicator.rotate();
+            }
+            return null;
+        }));
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            assertEquals(1, owners[round].get(), "owners of round " + round);
+        }
+
+        // Every caller of a round ends up with the owner's response, including callers that yielded
+        for (int round = 0; round < ROUNDS; round++) {
+            ScanDeduplicator.Claim owned = null;
+            for (ScanDeduplicator.Claim claim : claims[round]) {
+                if (claim.owned()) {
+                    owned = claim;
+                }
+            }
+            ScanResponse response = new ScanResponse();
+            deduplicator.complete(owned, response);
+            for (ScanDeduplicator.Claim claim : claims[round]) {
+                if (!claim.owned()) {
+                    assertSame(response, deduplicator.await(claim));
+                }
+            }
+        }
+
+        // The last round's ID survived its rotation
+        ScanDeduplicator.Claim retry = deduplicator.claim(ids[ROUNDS - 1]);
+        assertFalse(retry.owned());
+    }
+}
@@ -0,0 +1,255 @@
+package com.crowdmanagement.service;
+
+import com.crowdmanagement.dto.ScanRequest;
+import com.crowdmanagement.dto.ScanResponse;
+import com.crowdmanagement.entity.Alert;
+import com.crowdmanagement.entity.ScanType;
+import com.crowdmanagement.repository.AlertRepository;
+import com.crowdmanagement.repository.AlertRuleRepository;
+import com.crowdmanagement.repository.AreaRepository;
+import com.crowdmanagement.repository.EventRepository;
+import com.crowdmanagement.repository.ScanCommitRepository;
+import com.crowdmanagement.repository.ScanLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counts the statements one call of ScanService.processScan sends, with the
+ * real repository, alert screening and broadcast path behind it: on
+ * PostgreSQL a scan must cost one statement on one connection, also when
+ * it raises an alert. The JPA repositories are mocks that must stay
+ * untouched, since anything they ran would bypass the count.
+ */
+class ScanServiceStatementCountTest {
+
+    private static final long AREA_ID = 3L;
+    private static final int THRESHOLD = 80;
+
+    private final List<String> executed = new ArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger commits = new AtomicInteger();
+    private volatile int countAfterScan = 11;
+
+    private final ScanLogRepository scanLogRepository = mock(ScanLogRepository.class);
+    private final AreaRepository areaRepository = mock(AreaRepository.class);
+    private final EventRepository eventRepository = mock(EventRepository.class);
+    private final AlertRepository alertRepository = mock(AlertRepository.class);
+    private final WebSocketService webSocketService = mock(WebSocketService.class);
+
+    private ScanService scanService;
+    private ScanMetrics scanMetrics;
+    private ActiveAlertIndex activeAlertIndex;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource dataSource = recordingDataSource();
+
+        ScanCommitRepository scanCommitRepository = new ScanCommitRepository();
+        ReflectionTestUtils.setField(scanCommitRepository, "jdbcTemplate", new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(scanCommitRepository, "dataSource", dataSource);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        scanMetrics = new ScanMetrics();
+        ReflectionTestUtils.setField(scanMetrics, "meterRegistry", meterRegistry);
+
+        OccupancyStore occupancyStore = new OccupancyStore();
+        InflowForecaster inflowForecaster = new InflowForecaster();
+        ReflectionTestUtils.setField(inflowForecaster, "halfLifeSeconds", 300.0);
+        ReflectionTestUtils.setField(inflowForecaster, "horizonMinutes", 10.0);
+        inflowForecaster.init();
+
+        RapidInflowDetector rapidInflowDetector = new RapidInflowDetector();
+        ReflectionTestUtils.setField(rapidInflowDetector, "count", 10);
+        ReflectionTestUtils.setField(rapidInflowDetector, "windowSeconds", 30);
+
+        when(alertRepository.findAllUnresolved()).thenReturn(List.of());
+        when(alertRepository.save(any(Alert.class))).thenAnswer(invocation -> {
+            Alert alert = invocation.getArgument(0);
+            alert.setId(1L);
+            return alert;
+        });
+        activeAlertIndex = new ActiveAlertIndex();
+        ReflectionTestUtils.setField(activeAlertIndex, "alertRepository", alertRepository);
+        ReflectionTestUtils.setField(activeAlertIndex, "webSocketService", webSocketService);
+        ReflectionTestUtils.setField(activeAlertIndex, "repeatFlushSeconds", 3600L);
+        activeAlertIndex.load();
+        clearInvocations(alertRepository);
+
+        AlertService alertService = new AlertService();
+        ReflectionTestUtils.setField(alertService, "alertRepository", alertRepository);
+        ReflectionTestUtils.setField(alertService, "eventRepository", eventRepository);
+        ReflectionTestUtils.setField(alertService, "webSocketService", webSocketService);
+        ReflectionTestUtils.setField(alertService, "rapidInflowDetector", rapidInflowDetector);
+        ReflectionTestUtils.setField(alertService, "activeAlertIndex", activeAlertIndex);
+        ReflectionTestUtils.setField(alertService, "resolveBandPercent", 5.0);
+        ReflectionTestUtils.setField(alertService, "refireIntervalSeconds", 60L);
+
+        AlertRuleEngine alertRuleEngine = new AlertRuleEngine();
+        ReflectionTestUtils.setField(alertRuleEngine, "alertRuleRepository", mock(AlertRuleRepository.class));
+
+        // Alert work runs inline after the commit, on the scan thread, so it is counted too
+        AlertPipeline alertPipeline = new AlertPipeline();
+        ReflectionTestUtils.setField(alertPipeline, "alertService", alertService);
+        ReflectionTestUtils.setField(alertPipeline, "alertRuleEngine", alertRuleEngine);
+        ReflectionTestUtils.setField(alertPipeline, "inflowForecaster", inflowForecaster);
+        ReflectionTestUtils.setField(alertPipeline, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(alertPipeline, "async", false);
+        ReflectionTestUtils.setField(alertPipeline, "lagTargetMs", 1000L);
+        alertPipeline.start();
+
+        AreaBroadcastCoalescer coalescer = new AreaBroadcastCoalescer();
+        ReflectionTestUtils.setField(coalescer, "webSocketService", webSocketService);
+        ReflectionTestUtils.setField(coalescer, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(coalescer, "enabled", false);
+        coalescer.start();
+
+        scanService = new ScanService();
+        ReflectionTestUtils.setField(scanService, "scanLogRepository", scanLogRepository);
+        ReflectionTestUtils.setField(scanService, "scanCommitRepository", scanCommitRepository);
+        ReflectionTestUtils.setField(scanService, "eventRepository", eventRepository);
+        ReflectionTestUtils.setField(scanService, "areaRepository", areaRepository);
+        ReflectionTestUtils.setField(scanService, "areaBroadcastCoalescer", coalescer);
+        ReflectionTestUtils.setField(scanService, "alertPipeline", alertPipeline);
+        ReflectionTestUtils.setField(scanService, "occupancyStore", occupancyStore);
+        ReflectionTestUtils.setField(scanService, "inflowForecaster", inflowForecaster);
+        ReflectionTestUtils.setField(scanService, "transactionTemplate",
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(scanService, "singleRoundTrip", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        activeAlertIndex.stop();
+    }
+
+    @Test
+    void scanIsOneStatementOnOneConnection() {
+        scan(); // the first scan also probes the dialect
+        for (int i = 0; i < 5; i++) {
+            executed.clear();
+            connections.set(0);
+            commits.set(0);
+
+            ScanResponse response = scan();
+
+            assertEquals(1, executed.size(), "statements for one scan: " + executed);
+            assertEquals(1, connections.get());
+            assertEquals(1, commits.get());
+            assertEquals(countAfterScan, response.getNewCount());
+        }
+        verify(webSocketService, times(6)).broadcastAreaUpdates(any(), any(), any());
+        verifyNoInteractions(scanLogRepository, areaRepository, eventRepository, alertRepository);
+    }
+
+    @Test
+    void scanRaisingAnAlertAddsNoStatement() {
+        scan();
+        executed.clear();
+        connections.set(0);
+        clearInvocations(alertRepository);
+
+        countAfterScan = THRESHOLD;
+        scan();
+
+        assertEquals(1, executed.size(), "statements for one scan: " + executed);
+        assertEquals(1, connections.get());
+        // The new alert is the only JPA write; duplicate checks come from the in-memory index
+        verify(alertRepository).save(any(Alert.class));
+        verify(alertRepository, never()).findUnresolvedByAreaAndType(any(), any());
+        verifyNoInteractions(scanLogRepository, areaRepository);
+    }
+
+    private ScanResponse scan() {
+        ScanRequest request = new ScanRequest();
+        request.setAreaId(AREA_ID);
+        request.setScanType(ScanType.ENTRY);
+        return scanService.processScan(request, scanMetrics.start());
+    }
+
+    /**
+     * PostgreSQL DataSource whose statements record every execution
+     */
+    private DataSource recordingDataSource() throws Exception {
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+
+        Connection connection = mock(Connection.class, invocation -> switch (invocation.getMethod().getName()) {
+            case "getMetaData" -> metaData;
+            case "prepareStatement" -> statement(invocation.getArgument(0), (Connection) invocation.getMock());
+            case "getAutoCommit" -> true;
+            case "commit" -> {
+                commits.incrementAndGet();
+                yield null;
+            }
+            default -> Answers.RETURNS_DEFAULTS.answer(invocation);
+        });
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            connections.incrementAndGet();
+            return connection;
+        });
+        return dataSource;
+    }
+
+    private PreparedStatement statement(String sql, Connection connection) throws Exception {
+        ResultSet row = areaRow();
+        return mock(PreparedStatement.class, invocation -> switch (invocation.getMethod().getName()) {
+            case "executeQuery" -> {
+                executed.add(sql);
+                yield row;
+            }
+            case "executeUpdate", "execute", "executeBatch", "executeLargeUpdate" -> {
+                executed.add(sql);
+                yield Answers.RETURNS_DEFAULTS.answer(invocation);
+            }
+            case "getConnection" -> connection;
+            default -> Answers.RETURNS_DEFAULTS.answer(invocation);
+        });
+    }
+
+    /**
+     * The area row after the update (threshold 80, capacity 100)
+     */
+    private ResultSet areaRow() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getObject(anyString())).thenAnswer(invocation ->
+                "event_id".equals(invocation.getArgument(0)) ? null : 1L);
+        when(rs.getLong("scan_log_id")).thenReturn(42L);
+        when(rs.getLong("id")).thenReturn(AREA_ID);
+        when(rs.getString("name")).thenReturn("Gate");
+        when(rs.getString("owner_email")).thenReturn("owner@example.com");
+        when(rs.getInt("capacity")).thenReturn(100);
+        when(rs.getInt("threshold")).thenReturn(THRESHOLD);
+        when(rs.getInt("current_count")).thenAnswer(invocation -> countAfterScan);
+        when(rs.getBoolean("generate_qr")).thenReturn(true);
+        return rs;
+    }
+}
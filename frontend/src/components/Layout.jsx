@@ -13,8 +13,12 @@ function Layout({ onLogout, user }) {
   const navigate = useNavigate()
   const [unreadCount, setUnreadCount] = useState(0)
 
-  // Fetch unread alert count
+  const ownerEmail = user?.email
+
+  // Fetch the unread alert count once, then follow the pushed updates
   useEffect(() => {
+    if (!ownerEmail) return
+
     const fetchUnreadCount = async () => {
       try {
         const count = await alertService.getUnreadCount()
@@ -26,13 +30,13 @@ function Layout({ onLogout, user }) {
 
     fetchUnreadCount()
 
-    // Subscribe to alerts for real-time updates
+    // The server pushes the owner's count whenever it changes
     let subId = null
     const setupWebSocket = async () => {
       try {
         await websocketService.connect()
-        subId = websocketService.subscribeToAlerts(() => {
-          setUnreadCount(prev => prev + 1)
+        subId = websocketService.subscribeToUnreadCount(ownerEmail, (message) => {
+          setUnreadCount(message.count)
         })
       } catch (err) {
         console.error('WebSocket connection failed:', err)
@@ -40,14 +44,10 @@ function Layout({ onLogout, user }) {
     }
     setupWebSocket()
 
-    // Refresh count periodically
-    const interval = setInterval(fetchUnreadCount, 30000)
-
     return () => {
-      clearInterval(interval)
       if (subId) websocketService.unsubscribe(subId)
     }
-  }, [])
+  }, [ownerEmail])
 
   // Handle logout - clear all auth data
   const handleLogout = () => {
@@ -1,9 +1,12 @@
-import { useState, useEffect, useCallback } from 'react'
+import { useState, useEffect, useCallback, useMemo } from 'react'
 import alertService from '../services/alertService'
 import eventService from '../services/eventService'
 import websocketService from '../services/websocketService'
 import LoadingSpinner from '../components/LoadingSpinner'
 
+// Alerts per page of the alert list
+const PAGE_SIZE = 50
+
 /**
  * Alerts Page
  * -----------
@@ -13,6 +16,8 @@ import LoadingSpinner from '../components/LoadingSpinner'
  */
 function Alerts() {
   const [alerts, setAlerts] = useState([])
+  const [nextCursor, setNextCursor] = useState(null)
+  const [loadingMore, setLoadingMore] = useState(false)
   const [activeAlerts, setActiveAlerts] = useState([])
   const [events, setEvents] = useState([])
   const [loading, setLoading] = useState(true)
@@ -28,19 +33,23 @@ function Alerts() {
     (event.areas || []).map(area => ({ ...area, eventName: event.name }))
   )
 
-  // Fetch alerts and events
+  const filters = useMemo(() => ({
+    areaId: selectedArea !== 'all' ? selectedArea : null,
+    type: selectedType !== 'all' ? selectedType : null,
+    dateRange: selectedDateRange,
+    limit: PAGE_SIZE
+  }), [selectedArea, selectedType, selectedDateRange])
+
+  // Fetch alerts (first page) and events
   const fetchData = useCallback(async () => {
     try {
-      const [alertsData, activeAlertsData, eventsData] = await Promise.all([
-        alertService.getAllAlerts({
-          areaId: selectedArea !== 'all' ? selectedArea : null,
-          type: selectedType !== 'all' ? selectedType : null,
-          dateRange: selectedDateRange
-        }),
+      const [alertsPage, activeAlertsData, eventsData] = await Promise.all([
+        alertService.getAllAlerts(filters),
         alertService.getActiveAlerts(),
         eventService.getAllEvents()
       ])
-      setAlerts(alertsData)
+      setAlerts(alertsPage.items)
+      setNextCursor(alertsPage.nextCursor)
       setActiveAlerts(activeAlertsData)
       setEvents(eventsData)
       setError(null)
@@ -50,7 +59,22 @@ function Alerts() {
     } finally {
       setLoading(false)
     }
-  }, [selectedArea, selectedType, selectedDateRange])
+  }, [filters])
+
+  // Append the next page
+  const loadMore = async () => {
+    if (!nextCursor || loadingMore) return
+    setLoadingMore(true)
+    try {
+      const page = await alertService.getAllAlerts({ ...filters, cursor: nextCursor })
+      setAlerts(prev => [...prev, ...page.items.filter(a => !prev.some(p => p.id === a.id))])
+      setNextCursor(page.nextCursor)
+    } catch (err) {
+      console.error('Failed to load more alerts:', err)
+    } finally {
+      setLoadingMore(false)
+    }
+  }
 
   // Initial fetch
   useEffect(() => {
@@ -60,6 +84,7 @@ function Alerts() {
   // WebSocket subscription for real-time alerts
   useEffect(() => {
     let subId = null
+    let updatesSubId = null
 
     const connectWebSocket = async () => {
       try {
@@ -68,6 +93,10 @@ function Alerts() {
           setAlerts(prev => [newAlert, ...prev])
           setActiveAlerts(prev => [newAlert, ...prev.filter(a => a.id !== newAlert.id)])
         })
+        // Bulk changes arrive as one summary message: refetch instead of patching rows
+        updatesSubId = websocketService.subscribeToAlertUpdates(() => {
+          fetchData()
+        })
       } catch (err) {
         console.error('WebSocket connection failed:', err)
       }
@@ -79,8 +108,11 @@ function Alerts() {
       if (subId) {
         websocketService.unsubscribe(subId)
       }
+      if (updatesSubId) {
+        websocketService.unsubscribe(updatesSubId)
+      }
     }
-  }, [])
+  }, [fetchData])
 
   // Mark alert as read
   const handleMarkAsRead = async (alertId) => {
@@ -236,6 +268,10 @@ function Alerts() {
             <option value="OVERCROWDING">Overcrowding (Critical)</option>
             <option value="THRESHOLD_BREACH">Threshold Breach (Warning)</option>
             <option value="RAPID_INFLOW">Rapid Inflow (Critical)</option>
+            <option value="OUTFLOW_SURGE">Outflow Surge (Critical)</option>
+            <option value="SUSTAINED_OCCUPANCY">Sustained Occupancy (Warning)</option>
+            <option value="CUSTOM_THRESHOLD">Custom Threshold (Warning)</option>
+            <option value="CAPACITY_FORECAST">Capacity Forecast (Warning)</option>
           </select>
           <svg className="w-4 h-4 absolute right-3 top-1/2 -translate-y-1/2 text-neutral-400 pointer-events-none" fill="none" stroke="currentColor" viewBox="0 0 24 24">
             <path strokeLinecap="round" strokeLinejoin="round" strokeWidth="2" d="M19 9l-7 7-7-7" />
@@ -303,7 +339,9 @@ function Alerts() {
                       {getAlertIcon(alert.alertType, alert.critical)}
                       <div>
                         <div className="text-sm font-medium text-neutral-900">{alert.alertTypeDisplay}</div>
-                        <div className="text-xs text-neutral-500">({alert.severity})</div>
+                        <div className="text-xs text-neutral-500">
+                          ({alert.severity}){alert.occurrenceCount > 1 && ` · ${alert.occurrenceCount}x`}
+                        </div>
                       </div>
                     </div>
                     <div className="flex items-center justify-between">
@@ -324,6 +362,17 @@ function Alerts() {
                 ))
               )}
             </div>
+            {nextCursor && (
+              <div className="px-6 py-4 border-t border-neutral-100 text-center">
+                <button
+                  onClick={loadMore}
+                  disabled={loadingMore}
+                  className="text-sm font-medium text-neutral-600 hover:text-neutral-900 disabled:opacity-50"
+                >
+                  {loadingMore ? 'Loading...' : 'Load more'}
+                </button>
+              </div>
+            )}
           </div>
         </div>
 
@@ -365,8 +414,15 @@ function Alerts() {
                         {alert.alertType === 'OVERCROWDING' && `Overcrowded (${Math.round(alert.occupancyPercentage)}% Capacity)`}
                         {alert.alertType === 'THRESHOLD_BREACH' && `Threshold Breach (${Math.round(alert.occupancyPercentage)}% Capacity)`}
                         {alert.alertType === 'RAPID_INFLOW' && 'Rapid Inflow Detected'}
+                        {alert.alertType === 'OUTFLOW_SURGE' && 'Outflow Surge Detected'}
+                        {alert.alertType === 'SUSTAINED_OCCUPANCY' && `Sustained Occupancy (${Math.round(alert.occupancyPercentage)}% Capacity)`}
+                        {alert.alertType === 'CUSTOM_THRESHOLD' && `Custom Threshold (${Math.round(alert.occupancyPercentage)}% Capacity)`}
+                        {alert.alertType === 'CAPACITY_FORECAST' && 'Capacity Forecast'}
+                      </p>
+                      <p className="text-xs text-neutral-400 mt-1">
+                        {formatTime(alert.createdAt)}
+                        {alert.occurrenceCount > 1 && ` · repeated ${alert.occurrenceCount}x, last ${formatTime(alert.lastOccurredAt)}`}
                       </p>
-                      <p className="text-xs text-neutral-400 mt-1">{formatTime(alert.createdAt)}</p>
                     </div>
                   </div>
                 ))}
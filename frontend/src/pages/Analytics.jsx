@@ -36,7 +36,6 @@ function Analytics() {
   const [events, setEvents] = useState([])
   const [selectedAreaId, setSelectedAreaId] = useState(null)
   const [trendData, setTrendData] = useState([])
-  const [prediction, setPrediction] = useState(null)
   const [loading, setLoading] = useState(true)
 
   // Flatten all areas from events
@@ -72,16 +71,6 @@ function Analytics() {
       try {
         const data = await scanService.getHourlyTrend(selectedAreaId)
         setTrendData(data)
-        
-        if (data.length >= 3) {
-          const lastThree = data.slice(-3)
-          const avg = Math.round(
-            lastThree.reduce((sum, d) => sum + d.count, 0) / 3
-          )
-          setPrediction(avg)
-        } else {
-          setPrediction(null)
-        }
       } catch (err) {
         console.error('Failed to fetch trends:', err)
         setTrendData(generateMockTrendData())
@@ -116,6 +105,13 @@ function Analytics() {
     return 'bg-slate-100 text-slate-700'
   }
 
+  // Forecast minutes from the server; null = already there or not filling up
+  const formatMinutes = (minutes) => {
+    if (minutes == null) return '—'
+    if (minutes < 60) return `${Math.round(minutes)} min`
+    return `${Math.floor(minutes / 60)}h ${Math.round(minutes % 60)}m`
+  }
+
   // Monochrome chart options
   const chartOptions = {
     responsive: true,
@@ -207,11 +203,14 @@ function Analytics() {
             </p>
           </div>
           <div className="stat-card" style={{ borderLeft: '3px solid #171717' }}>
-            <p className="stat-label">Predicted Next Hour</p>
+            <p className="stat-label">Time to Capacity</p>
             <p className="stat-value">
-              {prediction !== null ? prediction : '—'}
+              {formatMinutes(selectedArea.minutesToCapacity)}
+            </p>
+            <p className="stat-meta">
+              Net inflow {selectedArea.netInflowPerMinute ?? 0}/min
+              {selectedArea.minutesToThreshold != null && ` · threshold in ${formatMinutes(selectedArea.minutesToThreshold)}`}
             </p>
-            <p className="stat-meta">Moving average</p>
           </div>
         </div>
       )}
@@ -323,8 +322,9 @@ function Analytics() {
               Prediction Method
             </h3>
             <p className="text-sm text-neutral-600">
-              Predictions use a <strong>Simple Moving Average</strong> of the last 3 hours 
-              to estimate the next hour's crowd count.
+              The server keeps an <strong>exponentially weighted net inflow rate</strong> per area,
+              updated on every scan, and projects it forward to estimate when the area reaches
+              its threshold and capacity.
             </p>
           </div>
         </div>
@@ -1,4 +1,4 @@
-import { useState, useEffect, useCallback } from 'react'
+import { useState, useEffect, useCallback, useRef } from 'react'
 import { useNavigate } from 'react-router-dom'
 import eventService from '../services/eventService'
 import websocketService from '../services/websocketService'
@@ -25,11 +25,20 @@ function Areas() {
   const [showQRModal, setShowQRModal] = useState(false)
   const [selectedArea, setSelectedArea] = useState(null)
 
+  // Latest live state per area (snapshot, deltas, config changes); it wins over
+  // the REST response, which may be older than what the socket already delivered
+  const liveAreas = useRef(new Map())
+
+  const withLiveAreas = (eventList) => eventList.map(event => ({
+    ...event,
+    areas: (event.areas || []).map(area => liveAreas.current.get(area.id) || area)
+  }))
+
   // Fetch all events with areas
   const fetchEvents = async () => {
     try {
       const data = await eventService.getAllEvents()
-      setEvents(data)
+      setEvents(withLiveAreas(data))
       setError(null)
     } catch (err) {
       setError('Failed to fetch areas')
@@ -38,14 +47,58 @@ function Areas() {
     }
   }
 
-  // Handle real-time area update from WebSocket
-  const handleAreaUpdate = useCallback((updatedArea) => {
+  // Last applied delta sequence per area, to drop late or reordered deltas
+  const lastSeq = useRef(new Map())
+
+  // Handle compact area deltas from WebSocket (one array per broadcast tick)
+  const handleAreaDeltas = useCallback((deltas) => {
+    const updates = new Map()
+    for (const delta of deltas) {
+      if (delta.seq > (lastSeq.current.get(delta.id) || 0)) {
+        lastSeq.current.set(delta.id, delta.seq)
+        updates.set(delta.id, delta)
+      }
+    }
+    if (updates.size === 0) return
+    for (const [id, delta] of updates) {
+      const live = liveAreas.current.get(id)
+      if (live) liveAreas.current.set(id, websocketService.applyAreaDelta(live, delta))
+    }
     setEvents(prevEvents => {
       return prevEvents.map(event => ({
         ...event,
-        areas: (event.areas || []).map(area => 
-          area.id === updatedArea.id ? updatedArea : area
-        )
+        areas: (event.areas || []).map(area =>
+          updates.has(area.id) ? websocketService.applyAreaDelta(area, updates.get(area.id)) : area)
+      }))
+    })
+  }, [])
+
+  // Handle full area state after a configuration change or reset
+  const handleAreaConfig = useCallback((updated) => {
+    liveAreas.current.set(updated.id, { ...liveAreas.current.get(updated.id), ...updated })
+    setEvents(prevEvents => {
+      return prevEvents.map(event => ({
+        ...event,
+        areas: (event.areas || []).map(area => area.id === updated.id ? { ...area, ...updated } : area)
+      }))
+    })
+  }, [])
+
+  // Handle the snapshot answered on subscribe: current state of every area as of
+  // snapshot.seq; areas that already got a newer delta keep it
+  const handleAreaSnapshot = useCallback((snapshot) => {
+    const fresh = new Map()
+    for (const area of snapshot.areas) {
+      if ((lastSeq.current.get(area.id) || 0) <= snapshot.seq) {
+        lastSeq.current.set(area.id, snapshot.seq)
+        liveAreas.current.set(area.id, area)
+        fresh.set(area.id, area)
+      }
+    }
+    setEvents(prevEvents => {
+      return prevEvents.map(event => ({
+        ...event,
+        areas: (event.areas || []).map(area => fresh.get(area.id) || area)
       }))
     })
   }, [])
@@ -53,14 +106,17 @@ function Areas() {
   useEffect(() => {
     fetchEvents()
     
-    let subId = null
+    const subIds = []
     
     // Connect to WebSocket for real-time updates
     websocketService.connect(
       () => {
         setWsConnected(true)
-        // Subscribe to area updates
-        subId = websocketService.subscribeToAllAreas(handleAreaUpdate)
+        // Subscribe to area deltas and configuration changes, then take the
+        // snapshot (also on every reconnect, instead of refetching over REST)
+        subIds.push(websocketService.subscribeToAreaDeltas(handleAreaDeltas))
+        subIds.push(websocketService.subscribeToAreaConfig(handleAreaConfig))
+        subIds.push(websocketService.subscribeToAreaSnapshot(handleAreaSnapshot))
       },
       (error) => {
         console.error('WebSocket error:', error)
@@ -70,11 +126,9 @@ function Areas() {
     
     // Cleanup on unmount
     return () => {
-      if (subId) {
-        websocketService.unsubscribe(subId)
-      }
+      subIds.filter(Boolean).forEach(websocketService.unsubscribe)
     }
-  }, [handleAreaUpdate])
+  }, [handleAreaDeltas, handleAreaConfig, handleAreaSnapshot])
 
   // View QR codes for area
   const handleViewQR = (area) => {
@@ -8,8 +8,9 @@ import api from './api'
 
 const alertService = {
   /**
-   * Get all alerts with optional filters
-   * @param {Object} filters - { status, type, areaId, dateRange }
+   * Get one page of alerts (newest first); all filters combine
+   * @param {Object} filters - { status, type, areaId, dateRange, cursor, limit }
+   * @returns {{ items, nextCursor, hasMore }} - pass nextCursor as cursor for the next page
    */
   getAllAlerts: async (filters = {}) => {
     const params = new URLSearchParams()
@@ -17,6 +18,8 @@ const alertService = {
     if (filters.type && filters.type !== 'all') params.append('type', filters.type)
     if (filters.areaId) params.append('areaId', filters.areaId)
     if (filters.dateRange) params.append('dateRange', filters.dateRange)
+    if (filters.cursor) params.append('cursor', filters.cursor)
+    if (filters.limit) params.append('limit', filters.limit)
     
     const response = await api.get(`/alerts?${params.toString()}`)
     return response.data
@@ -62,6 +65,15 @@ const alertService = {
   markAllAsRead: async () => {
     const response = await api.put('/alerts/mark-all-read')
     return response.data
+  },
+
+  /**
+   * Resolve all unresolved alerts of an event
+   * @param {number} eventId
+   */
+  resolveAllForEvent: async (eventId) => {
+    const response = await api.put(`/alerts/event/${eventId}/resolve-all`)
+    return response.data
   }
 }
 
@@ -6,6 +6,11 @@ import { Client } from '@stomp/stompjs'
  * -----------------
  * Real-time updates via WebSocket with STOMP protocol.
  * Falls back to SockJS for browsers without native WebSocket support.
+ *
+ * Live topics are scoped to the signed-in owner (/topic/owner/{email}/...)
+ * or to one event (/topic/event/{id}/...); the server only allows
+ * subscriptions to the user's own topics, identified by the signed-in
+ * (OAuth) session the WebSocket handshake carries.
  */
 
 let stompClient = null
@@ -15,6 +20,9 @@ let reconnectAttempts = 0
 const MAX_RECONNECT_ATTEMPTS = 5
 const RECONNECT_DELAY = 3000
 
+// Topic prefix of the signed-in owner (same identity as the API's X-User-Email header)
+const ownerTopic = () => `/topic/owner/${localStorage.getItem('userEmail')}`
+
 /**
  * Connect to WebSocket server
  * @param {Function} onConnect Callback when connected
@@ -44,7 +52,13 @@ export const connect = (onConnect, onError) => {
     reconnectDelay: RECONNECT_DELAY,
     heartbeatIncoming: 4000,
     heartbeatOutgoing: 4000,
-    
+
+    // Identifies the owner when the handshake carries no OAuth session (local login, cross-origin SockJS)
+    beforeConnect: () => {
+      const userEmail = localStorage.getItem('userEmail')
+      stompClient.connectHeaders = userEmail ? { 'X-User-Email': userEmail } : {}
+    },
+
     onConnect: () => {
       console.log('WebSocket connected')
       connected = true
@@ -120,12 +134,23 @@ export const subscribeToArea = (areaId, callback) => {
 }
 
 /**
- * Subscribe to all area updates
- * @param {Function} callback Callback with updated area data
+ * Subscribe to the signed-in owner's area updates
+ * Batched by the server: one message per tick with the latest state of each changed area
+ * @param {Function} callback Callback with an array of updated areas
  * @returns {string} Subscription ID for unsubscribing
  */
 export const subscribeToAllAreas = (callback) => {
-  return subscribe('/topic/areas', callback)
+  return subscribe(`${ownerTopic()}/areas`, callback)
+}
+
+/**
+ * Subscribe to the area updates of one event
+ * @param {number} eventId Event ID
+ * @param {Function} callback Callback with an array of updated areas
+ * @returns {string} Subscription ID for unsubscribing
+ */
+export const subscribeToEventAreas = (eventId, callback) => {
+  return subscribe(`/topic/event/${eventId}/areas`, callback)
 }
 
 /**
@@ -134,16 +159,17 @@ export const subscribeToAllAreas = (callback) => {
  * @returns {string} Subscription ID for unsubscribing
  */
 export const subscribeToAreasAll = (callback) => {
-  return subscribe('/topic/areas/all', callback)
+  return subscribe(`${ownerTopic()}/areas/all`, callback)
 }
 
 /**
  * Subscribe to scan events
- * @param {Function} callback Callback with scan event data
+ * Batched by the server: one message per tick with the latest scan of each changed area
+ * @param {Function} callback Callback with an array of { areaId, scanType, newCount }
  * @returns {string} Subscription ID for unsubscribing
  */
 export const subscribeToScans = (callback) => {
-  return subscribe('/topic/scans', callback)
+  return subscribe(`${ownerTopic()}/scans`, callback)
 }
 
 /**
@@ -152,9 +178,85 @@ export const subscribeToScans = (callback) => {
  * @returns {string} Subscription ID for unsubscribing
  */
 export const subscribeToAlerts = (callback) => {
-  return subscribe('/topic/alerts', callback)
+  return subscribe(`${ownerTopic()}/alerts`, callback)
 }
 
+/**
+ * Subscribe to bulk alert updates (mark all read, resolve area/event)
+ * One message per operation with the number of affected alerts
+ * @param {Function} callback Callback with { action, ownerEmail, eventId, areaId, alertType, affected }
+ * @returns {string} Subscription ID for unsubscribing
+ */
+export const subscribeToAlertUpdates = (callback) => {
+  return subscribe(`${ownerTopic()}/alerts/updates`, callback)
+}
+
+/**
+ * Subscribe to an owner's unread alert count (pushed on every change)
+ * @param {string} ownerEmail Owner's email
+ * @param {Function} callback Callback with { count }
+ * @returns {string} Subscription ID for unsubscribing
+ */
+export const subscribeToUnreadCount = (ownerEmail, callback) => {
+  return subscribe(`/topic/owner/${ownerEmail}/unread-count`, callback)
+}
+
+/**
+ * Subscribe to compact area deltas (one array per broadcast tick)
+ * Lighter than subscribeToAllAreas; apply with applyAreaDelta
+ * @param {Function} callback Callback with [{ id, seq, count, status }]
+ * @returns {string} Subscription ID for unsubscribing
+ */
+export const subscribeToAreaDeltas = (callback) => {
+  return subscribe(`${ownerTopic()}/areas/delta`, callback)
+}
+
+/**
+ * Request the signed-in owner's live area snapshot (answered once, from server memory)
+ * Subscribe to the area deltas first: deltas with seq <= snapshot.seq are already included
+ * @param {Function} callback Callback with { seq, areas }
+ * @returns {string} Subscription ID for unsubscribing
+ */
+export const subscribeToAreaSnapshot = (callback) => {
+  return subscribe(`/app/owner/${localStorage.getItem('userEmail')}/areas/snapshot`, callback)
+}
+
+/**
+ * Request the live area snapshot of one event
+ * @param {number} eventId Event ID
+ * @param {Function} callback Callback with { seq, areas }
+ * @returns {string} Subscription ID for unsubscribing
+ */
+export const subscribeToEventAreaSnapshot = (eventId, callback) => {
+  return subscribe(`/app/event/${eventId}/areas/snapshot`, callback)
+}
+
+/**
+ * Subscribe to full area state sent on configuration changes and resets
+ * @param {Function} callback Callback with area data
+ * @returns {string} Subscription ID for unsubscribing
+ */
+export const subscribeToAreaConfig = (callback) => {
+  return subscribe(`${ownerTopic()}/areas/config`, callback)
+}
+
+const STATUS_CODES = ['GREEN', 'YELLOW', 'RED']
+
+/**
+ * Apply a compact delta to a full area object
+ * @param {Object} area Area as returned by the REST API
+ * @param {Object} delta { id, seq, count, status }
+ * @returns {Object} Updated area
+ */
+export const applyAreaDelta = (area, delta) => ({
+  ...area,
+  currentCount: delta.count,
+  status: STATUS_CODES[delta.status] || area.status,
+  occupancyPercentage: area.capacity > 0
+    ? Math.round((delta.count / area.capacity) * 1000) / 10
+    : area.occupancyPercentage
+})
+
 /**
  * Generic subscribe function
  * @param {string} topic Topic to subscribe to
@@ -205,9 +307,17 @@ export default {
   disconnect,
   subscribeToArea,
   subscribeToAllAreas,
+  subscribeToEventAreas,
   subscribeToAreasAll,
   subscribeToScans,
   subscribeToAlerts,
+  subscribeToAlertUpdates,
+  subscribeToUnreadCount,
+  subscribeToAreaDeltas,
+  subscribeToAreaConfig,
+  subscribeToAreaSnapshot,
+  subscribeToEventAreaSnapshot,
+  applyAreaDelta,
   unsubscribe,
   isConnected
 }